@@ -28,7 +28,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.cascadebot.cascadebot.commandmeta.CommandManager;
 import org.cascadebot.cascadebot.data.Config;
 import org.cascadebot.cascadebot.data.database.DatabaseManager;
+import org.cascadebot.cascadebot.data.database.MongoInvalidationBus;
 import org.cascadebot.cascadebot.data.managers.GuildDataManager;
+import org.cascadebot.cascadebot.data.managers.StatisticsManager;
 import org.cascadebot.cascadebot.events.ButtonEventListener;
 import org.cascadebot.cascadebot.events.CommandListener;
 import org.cascadebot.cascadebot.events.GeneralEventListener;
@@ -37,10 +39,14 @@ import org.cascadebot.cascadebot.events.VoiceEventListener;
 import org.cascadebot.cascadebot.metrics.Metrics;
 import org.cascadebot.cascadebot.moderation.ModerationManager;
 import org.cascadebot.cascadebot.music.MusicHandler;
+import org.cascadebot.cascadebot.music.MusicStateStore;
+import org.cascadebot.cascadebot.music.TrackCache;
 import org.cascadebot.cascadebot.permissions.PermissionsManager;
 import org.cascadebot.cascadebot.tasks.Task;
 import org.cascadebot.cascadebot.utils.EventWaiter;
 import org.cascadebot.cascadebot.utils.LogbackUtils;
+import org.cascadebot.cascadebot.utils.buttons.ButtonRegistry;
+import org.cascadebot.cascadebot.utils.pagination.PageCache;
 import org.cascadebot.shared.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -124,6 +130,7 @@ public class CascadeBot {
         LOGGER.info("All shards successfully logged in!");
         LOGGER.info("Cascade Bot version {} successfully booted up!", version);
         startupTime = System.currentTimeMillis();
+        MusicStateStore.resume(musicHandler);
     }
 
 
@@ -167,6 +174,10 @@ public class CascadeBot {
             );
         }
 
+        if (Config.INS.isChangeStreams()) {
+            GuildDataManager.setInvalidationBus(new MongoInvalidationBus(databaseManager, GuildDataManager.COLLECTION));
+        }
+
         musicHandler = new MusicHandler(this);
         musicHandler.buildMusic();
 
@@ -196,7 +207,7 @@ public class CascadeBot {
             if (MusicHandler.isLavalinkEnabled()) {
                 defaultShardManagerBuilder.addEventListeners(MusicHandler.getLavalink());
             } else {
-                defaultShardManagerBuilder.setAudioSendFactory(new NativeAudioSendFactory());
+                defaultShardManagerBuilder.setAudioSendFactory(new NativeAudioSendFactory(Config.INS.getNasBufferDuration()));
             }
 
             shardManager = defaultShardManagerBuilder.build();
@@ -212,6 +223,10 @@ public class CascadeBot {
         moderationManager = new ModerationManager();
 
         Metrics.INS.cacheMetrics.addCache("guild", GuildDataManager.getGuilds());
+        Metrics.INS.cacheMetrics.addCache("tracks", TrackCache.getCache());
+        Metrics.INS.cacheMetrics.addCache("youtube_search", MusicHandler.getSearchCache().synchronous());
+        Metrics.INS.cacheMetrics.addCache("pages", PageCache.getCache());
+        Metrics.INS.cacheMetrics.addCache("buttons", ButtonRegistry.getCache());
 
         Thread.setDefaultUncaughtExceptionHandler(((t, e) -> LOGGER.error("Uncaught exception in thread " + t, MDCException.from(e))));
         Thread.currentThread()
@@ -230,12 +245,12 @@ public class CascadeBot {
     }
 
     private void setupTasks() {
-        new Task("prune-players") {
+        new Task("flush-statistics") {
             @Override
             protected void execute() {
-                musicHandler.purgeDisconnectedPlayers();
+                StatisticsManager.flush();
             }
-        }.start(TimeUnit.MINUTES.toMillis(5), TimeUnit.MINUTES.toMillis(15));
+        }.start(TimeUnit.MINUTES.toMillis(5), TimeUnit.MINUTES.toMillis(5));
     }
 
 
@@ -276,6 +291,11 @@ public class CascadeBot {
         return commandManager;
     }
 
+    // Only used by benchmarks, which set up the parts of the bot they need without starting it
+    void setCommandManager(CommandManager commandManager) {
+        this.commandManager = commandManager;
+    }
+
     public DatabaseManager getDatabaseManager() {
         return databaseManager;
     }
@@ -284,6 +304,10 @@ public class CascadeBot {
         return permissionsManager;
     }
 
+    void setPermissionsManager(PermissionsManager permissionsManager) {
+        this.permissionsManager = permissionsManager;
+    }
+
     public ModerationManager getModerationManager() {
         return moderationManager;
     }
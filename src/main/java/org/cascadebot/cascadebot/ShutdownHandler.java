@@ -8,7 +8,9 @@ package org.cascadebot.cascadebot;
 import lombok.experimental.UtilityClass;
 import org.cascadebot.cascadebot.commands.developer.EvalCommand;
 import org.cascadebot.cascadebot.data.managers.GuildDataManager;
+import org.cascadebot.cascadebot.data.managers.StatisticsManager;
 import org.cascadebot.cascadebot.events.CommandListener;
+import org.cascadebot.cascadebot.music.MusicStateStore;
 import org.cascadebot.cascadebot.tasks.Task;
 import org.cascadebot.shared.ExitCodes;
 import org.cascadebot.shared.SharedConstants;
@@ -57,6 +59,8 @@ public class ShutdownHandler {
         CascadeBot.LOGGER.info("Bot shutting down gracefully!");
         long startTime = System.currentTimeMillis(); // Ensures all data is saved before exiting
         GuildDataManager.getGuilds().asMap().forEach(GuildDataManager::replaceSync);
+        StatisticsManager.flushSync();
+        MusicStateStore.save(CascadeBot.INS.getMusicHandler());
         CascadeBot.LOGGER.info("Took " + (System.currentTimeMillis() - startTime) + "ms to save!");
         EvalCommand.shutdownEvalPool();
         CommandListener.shutdownCommandPool();
@@ -71,6 +71,9 @@ public class GuildFlagSubCommand implements ICommandExecutable {
                 guildData.enableFlag(flag);
                 context.getTypedMessaging().replySuccess("Enabled flag `%s` for guild `%s (%s)`", FormatUtils.formatEnum(flag), guild.getName(), guild.getId());
             }
+            if (flag == Flag.MUSIC_SERVICES) {
+                CascadeBot.INS.getMusicHandler().onMusicServicesChanged(guild.getIdLong(), guildData.isFlagEnabled(flag));
+            }
 
         }
     }
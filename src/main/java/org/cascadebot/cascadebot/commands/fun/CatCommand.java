@@ -18,6 +18,7 @@ import org.cascadebot.cascadebot.permissions.CascadePermission;
 import org.cascadebot.cascadebot.utils.WebUtils;
 import org.cascadebot.cascadebot.utils.buttons.Button;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
+import org.cascadebot.cascadebot.utils.buttons.ButtonRegistry;
 
 import java.io.IOException;
 
@@ -39,7 +40,7 @@ public class CatCommand implements ICommandMain {
                     context.getUIMessaging().replyImage(getCatUrl()).thenAccept(catMessage -> {
                         catButtons.addButtonsToMessage(catMessage);
                         catButtons.setMessage(catMessage.getIdLong());
-                        context.getData().addButtonGroup(context.getChannel(), catMessage, catButtons);
+                        ButtonRegistry.register(catMessage, catButtons);
                     });
                     message.delete().queue();
                 }
@@ -51,7 +52,7 @@ public class CatCommand implements ICommandMain {
             context.getUIMessaging().replyImage(getCatUrl()).thenAccept(message -> {
                 catButtons.addButtonsToMessage(message);
                 catButtons.setMessage(message.getIdLong());
-                context.getData().addButtonGroup(context.getChannel(), message, catButtons);
+                ButtonRegistry.register(message, catButtons);
             });
         } catch (IOException e) {
             context.getTypedMessaging().replyDanger("Error loading cat picture " + UnicodeConstants.FROWNING);
@@ -18,6 +18,7 @@ import org.cascadebot.cascadebot.permissions.CascadePermission;
 import org.cascadebot.cascadebot.utils.WebUtils;
 import org.cascadebot.cascadebot.utils.buttons.Button;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
+import org.cascadebot.cascadebot.utils.buttons.ButtonRegistry;
 
 import java.io.IOException;
 
@@ -40,7 +41,7 @@ public class DogCommand implements ICommandMain {
                     context.getUIMessaging().replyImage(getDogUrl()).thenAccept(dogMessage -> {
                         dogButtons.addButtonsToMessage(dogMessage);
                         dogButtons.setMessage(dogMessage.getIdLong());
-                        context.getData().addButtonGroup(context.getChannel(), dogMessage, dogButtons);
+                        ButtonRegistry.register(dogMessage, dogButtons);
                     });
                     message.delete().queue();
                 }
@@ -52,7 +53,7 @@ public class DogCommand implements ICommandMain {
             context.getUIMessaging().replyImage(getDogUrl()).thenAccept(message -> {
                 dogButtons.addButtonsToMessage(message);
                 dogButtons.setMessage(message.getIdLong());
-                context.getData().addButtonGroup(context.getChannel(), message, dogButtons);
+                ButtonRegistry.register(message, dogButtons);
             });
         } catch (IOException e) {
             context.getTypedMessaging().replyDanger("Error loading dog picture " + UnicodeConstants.FROWNING);
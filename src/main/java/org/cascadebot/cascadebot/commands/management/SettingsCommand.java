@@ -100,6 +100,10 @@ public class SettingsCommand implements ICommandMain {
                 } else {
                     return;
                 }
+                if (field.getName().equals("adminsHaveAllPerms")) {
+                    // This changes the result of permission checks for every admin in the guild
+                    context.getData().getPermissions().invalidateAll();
+                }
                 context.getTypedMessaging()
                        .replySuccess("Setting `%s` has been set to a value of `%s`", field.getName(), value);
             } catch (IllegalAccessException e) {
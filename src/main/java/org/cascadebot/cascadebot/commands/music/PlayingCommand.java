@@ -20,6 +20,7 @@ import org.cascadebot.cascadebot.permissions.PermissionsManager;
 import org.cascadebot.cascadebot.utils.FormatUtils;
 import org.cascadebot.cascadebot.utils.buttons.Button;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
+import org.cascadebot.cascadebot.utils.buttons.ButtonRegistry;
 
 import java.util.Set;
 
@@ -27,27 +28,27 @@ public class PlayingCommand implements ICommandMain {
 
     private Button.UnicodeButton playButton = new Button.UnicodeButton(UnicodeConstants.PLAY, (runner, channel, message) -> {
         if (CascadeBot.INS.getPermissionsManager().isAuthorised(CascadeBot.INS.getCommandManager().getCommandByDefault("resume"), GuildDataManager.getGuildData(channel.getGuild().getIdLong()), runner)) {
-            handlePlayPause(GuildDataManager.getGuildData(channel.getGuild().getIdLong()).getButtonsCache().get(channel.getIdLong()).get(message.getIdLong()), message);
+            handlePlayPause(ButtonRegistry.get(message.getIdLong()), message);
         }
     });
 
     private Button.UnicodeButton pauseButton = new Button.UnicodeButton(UnicodeConstants.PAUSE, (runner, channel, message) -> {
         if (CascadeBot.INS.getPermissionsManager().isAuthorised(CascadeBot.INS.getCommandManager().getCommandByDefault("pause"), GuildDataManager.getGuildData(channel.getGuild().getIdLong()), runner)) {
-            handlePlayPause(GuildDataManager.getGuildData(channel.getGuild().getIdLong()).getButtonsCache().get(channel.getIdLong()).get(message.getIdLong()), message);
+            handlePlayPause(ButtonRegistry.get(message.getIdLong()), message);
         }
     });
 
     private Button.UnicodeButton repeat = new Button.UnicodeButton(UnicodeConstants.REPEAT, (runner, channel, message) -> {
 
         if (CascadeBot.INS.getPermissionsManager().isAuthorised(CascadeBot.INS.getCommandManager().getCommandByDefault("loop"), GuildDataManager.getGuildData(channel.getGuild().getIdLong()), runner)) {
-            ButtonGroup buttonGroup = GuildDataManager.getGuildData(channel.getGuild().getIdLong()).getButtonsCache().get(channel.getIdLong()).get(message.getIdLong());
+            ButtonGroup buttonGroup = ButtonRegistry.get(message.getIdLong());
             handleRepeat(buttonGroup, CascadePlayer.LoopMode.PLAYLIST, message);
         }
     });
 
     private Button.UnicodeButton repeatOne = new Button.UnicodeButton(UnicodeConstants.REPEAT_ONCE, (runner, channel, message) -> {
         if (CascadeBot.INS.getPermissionsManager().isAuthorised(CascadeBot.INS.getCommandManager().getCommandByDefault("loop"), GuildDataManager.getGuildData(channel.getGuild().getIdLong()), runner)) {
-            ButtonGroup buttonGroup = GuildDataManager.getGuildData(channel.getGuild().getIdLong()).getButtonsCache().get(channel.getIdLong()).get(message.getIdLong());
+            ButtonGroup buttonGroup = ButtonRegistry.get(message.getIdLong());
             handleRepeat(buttonGroup, CascadePlayer.LoopMode.SONG, message);
         }
     });
@@ -55,7 +56,7 @@ public class PlayingCommand implements ICommandMain {
     private Button.EmoteButton noRepeat = new Button.EmoteButton(Config.INS.getGlobalEmotes().get("norepeat"), (runner, channel, message) -> {
 
         if (CascadeBot.INS.getPermissionsManager().isAuthorised(CascadeBot.INS.getCommandManager().getCommandByDefault("loop"), GuildDataManager.getGuildData(channel.getGuild().getIdLong()), runner)) {
-            ButtonGroup buttonGroup = GuildDataManager.getGuildData(channel.getGuild().getIdLong()).getButtonsCache().get(channel.getIdLong()).get(message.getIdLong());
+            ButtonGroup buttonGroup = ButtonRegistry.get(message.getIdLong());
             handleRepeat(buttonGroup, CascadePlayer.LoopMode.DISABLED, message);
         }
     });
@@ -76,7 +77,7 @@ public class PlayingCommand implements ICommandMain {
                         if (volume <= 0) {
                             volume = 0;
                         }
-                        context.getMusicPlayer().getPlayer().setVolume(volume);
+                        context.getMusicPlayer().setVolume(volume);
                         message.editMessage(getSongEmbed(player, context.getGuild().getIdLong())).queue();
                     }
                 }));
@@ -87,7 +88,7 @@ public class PlayingCommand implements ICommandMain {
                         if (volume >= 100) {
                             volume = 100;
                         }
-                        context.getMusicPlayer().getPlayer().setVolume(volume);
+                        context.getMusicPlayer().setVolume(volume);
                         message.editMessage(getSongEmbed(player, context.getGuild().getIdLong())).queue();
                     }
                 }));
@@ -8,58 +8,62 @@ package org.cascadebot.cascadebot.commands.music;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.User;
 import org.cascadebot.cascadebot.CascadeBot;
 import org.cascadebot.cascadebot.commandmeta.CommandContext;
 import org.cascadebot.cascadebot.commandmeta.ICommandExecutable;
 import org.cascadebot.cascadebot.commandmeta.ICommandMain;
 import org.cascadebot.cascadebot.commandmeta.Module;
-import org.cascadebot.cascadebot.messaging.MessagingObjects;
 import org.cascadebot.cascadebot.music.CascadePlayer;
+import org.cascadebot.cascadebot.music.TrackQueue;
 import org.cascadebot.cascadebot.permissions.CascadePermission;
 import org.cascadebot.cascadebot.utils.pagination.Page;
 import org.cascadebot.cascadebot.utils.pagination.PageObjects;
+import org.cascadebot.cascadebot.utils.pagination.PageProvider;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
 
 public class QueueCommand implements ICommandMain {
 
+    private static final int PAGE_SIZE = 10;
+
     @Override
     public void onCommand(Member sender, CommandContext context) {
         CascadePlayer player = context.getMusicPlayer();
-        EmbedBuilder embedBuilder = MessagingObjects.getClearThreadLocalEmbedBuilder();
-
-        embedBuilder.setTitle("Queue");
-
         if (player.getQueue().isEmpty() && player.getPlayer().getPlayingTrack() == null) {
             context.getTypedMessaging().replyInfo("There are no tracks playing!");
             return;
         }
 
-        StringBuilder builder = new StringBuilder();
+        TrackQueue queue = player.getQueue();
+        // Pages are read straight from the queue when they're shown, so only the tracks on that page are rendered
+        context.getUIMessaging().sendPagedMessage(new PageProvider() {
+            @Override
+            public int getPageCount() {
+                return Math.max(1, (queue.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+            }
 
-        List<Page> pages = new ArrayList<>();
+            @Override
+            public Page getPage(int page) {
+                return new PageObjects.EmbedPage(new EmbedBuilder().setTitle("Queue").setDescription(renderPage(queue, page)));
+            }
+        });
+    }
 
-        int i = 1;
-        for (AudioTrack track : player.getQueue()) {
+    private static String renderPage(TrackQueue queue, int page) {
+        int start = (page - 1) * PAGE_SIZE;
+        StringBuilder builder = new StringBuilder();
+        int i = start + 1;
+        for (AudioTrack track : queue.getRange(start, start + PAGE_SIZE)) {
             builder.append(i).append(". **").append(track.getInfo().title).append("**");
-            if(track.getUserData() instanceof Long) {
-                builder.append("\n Requested by ").append(CascadeBot.INS.getShardManager().getUserById((Long) track.getUserData()).getAsTag());
+            if (track.getUserData() instanceof Long) {
+                User user = CascadeBot.INS.getShardManager().getUserById((Long) track.getUserData());
+                builder.append("\n Requested by ").append(user != null ? user.getAsTag() : "<@" + track.getUserData() + ">");
             }
             builder.append("\n\n");
-            if (i % 10 == 0) {
-                pages.add(new PageObjects.EmbedPage(new EmbedBuilder().setDescription(builder.toString())));
-                builder = new StringBuilder();
-            }
             i++;
         }
-
-        if (builder.toString().length() > 0) {
-            pages.add(new PageObjects.EmbedPage(new EmbedBuilder().setDescription(builder.toString())));
-        }
-
-        context.getUIMessaging().sendPagedMessage(pages);
+        return builder.length() > 0 ? builder.toString() : "The queue is empty!";
     }
 
     @Override
@@ -12,6 +12,7 @@ import org.cascadebot.cascadebot.commandmeta.ArgumentType;
 import org.cascadebot.cascadebot.commandmeta.CommandContext;
 import org.cascadebot.cascadebot.commandmeta.ICommandExecutable;
 import org.cascadebot.cascadebot.data.objects.PlaylistType;
+import org.cascadebot.cascadebot.music.PlaylistLoader;
 import org.cascadebot.cascadebot.permissions.CascadePermission;
 import org.cascadebot.cascadebot.utils.buttons.Button;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
@@ -27,11 +28,11 @@ public class QueueLoadSubCommand implements ICommandExecutable {
             return;
         }
 
-        context.getMusicPlayer().loadPlaylist(context.getArg(0), sender, (result, tracks) -> {
+        context.getMusicPlayer().loadPlaylist(context.getArg(0), sender, (result, loader) -> {
             switch (result) {
                 case LOADED_GUILD:
                 case LOADED_USER:
-                    context.getUIMessaging().sendTracksFound(tracks);
+                    sendLoadResult(context, loader);
                     break;
                 case EXISTS_IN_ALL_SCOPES:
                     ButtonGroup buttonGroup = new ButtonGroup(sender.getUser().getIdLong(), context.getChannel().getIdLong(), context.getGuild().getIdLong());
@@ -40,8 +41,8 @@ public class QueueLoadSubCommand implements ICommandExecutable {
                             return;
                         }
                         message.delete().queue();
-                        context.getMusicPlayer().loadPlaylist(context.getArg(0), sender, PlaylistType.USER, ((loadPlaylistResult, newTracks) -> {
-                            context.getUIMessaging().sendTracksFound(newTracks);
+                        context.getMusicPlayer().loadPlaylist(context.getArg(0), sender, PlaylistType.USER, ((loadPlaylistResult, newLoader) -> {
+                            sendLoadResult(context, newLoader);
                         }));
                     })));
                     buttonGroup.addButton(new Button.UnicodeButton(UnicodeConstants.TWO, ((runner, channel, message) -> {
@@ -49,8 +50,8 @@ public class QueueLoadSubCommand implements ICommandExecutable {
                             return;
                         }
                         message.delete().queue();
-                        context.getMusicPlayer().loadPlaylist(context.getArg(0), sender, PlaylistType.GUILD, ((loadPlaylistResult, newTracks) -> {
-                            context.getUIMessaging().sendTracksFound(newTracks);
+                        context.getMusicPlayer().loadPlaylist(context.getArg(0), sender, PlaylistType.GUILD, ((loadPlaylistResult, newLoader) -> {
+                            sendLoadResult(context, newLoader);
                         }));
                     })));
                     context.getUIMessaging().sendButtonedMessage("Where you like to load this track from\n" + UnicodeConstants.ONE +
@@ -63,6 +64,15 @@ public class QueueLoadSubCommand implements ICommandExecutable {
         });
     }
 
+    private void sendLoadResult(CommandContext context, PlaylistLoader loader) {
+        if (!loader.getLoadedTracks().isEmpty()) {
+            context.getUIMessaging().sendTracksFound(loader.getLoadedTracks());
+        }
+        if (!loader.getFailedTracks().isEmpty()) {
+            context.getTypedMessaging().replyWarning("Couldn't load `%s` of the tracks in this playlist", loader.getFailedTracks().size());
+        }
+    }
+
     @Override
     public String command() {
         return "load";
@@ -48,7 +48,7 @@ public class VolumeCommand implements ICommandMain {
                         new ConfirmUtils.ConfirmRunnable() {
                             @Override
                             public void execute() {
-                                player.getPlayer().setVolume(volume);
+                                player.setVolume(volume);
                                 context.getTypedMessaging().replyInfo("Volume set to %d%%", player.getPlayer().getVolume());
                             }
                         });
@@ -65,7 +65,7 @@ public class VolumeCommand implements ICommandMain {
         if (volume == context.getMusicPlayer().getPlayer().getVolume()) {
             context.getTypedMessaging().replyInfo("Volume is already %d%%", player.getPlayer().getVolume());
         } else {
-            player.getPlayer().setVolume(volume);
+            player.setVolume(volume);
             context.getTypedMessaging().replyInfo("Volume set to %d%%", player.getPlayer().getVolume());
         }
 
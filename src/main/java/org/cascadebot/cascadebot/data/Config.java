@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Getter
 public class Config {
@@ -71,6 +72,7 @@ public class Config {
     private boolean ssl;
 
     private String connectionString;
+    private boolean changeStreams;
 
     private int shardNum;
 
@@ -80,6 +82,12 @@ public class Config {
     private long officialServerId;
 
     private String youtubeKey;
+    private int musicFrameBufferDuration;
+    private int nasBufferDuration;
+    private long musicPrefetchDuration;
+    private boolean musicBroadcastStreams;
+    private String musicStateFile;
+    private double musicResumeRate;
 
     private List<MusicHandler.MusicNode> musicNodes = new ArrayList<>();
 
@@ -165,6 +173,8 @@ public class Config {
             this.ssl = warnOnDefault(config, "database.ssl", false);
         }
 
+        this.changeStreams = config.getBoolean("database.change_streams", false);
+
         this.prometheusPort = config.getInt("stats_port", 6060);
 
         shardNum = warnOnDefault(config, "shard_num", -1);
@@ -224,7 +234,10 @@ public class Config {
                 String address = (String) rawNode.get("address");
                 String password = (String) rawNode.get("password");
                 try {
-                    musicNodes.add(new MusicHandler.MusicNode(new URI(address), password));
+                    URI uri = new URI(address);
+                    // Names are used in logs and metrics, so they default to something that identifies the node
+                    String name = rawNode.get("name") != null ? String.valueOf(rawNode.get("name")) : uri.getHost() + ":" + uri.getPort();
+                    musicNodes.add(new MusicHandler.MusicNode(uri, password, name));
                 } catch (URISyntaxException e) {
                     LOG.warn("Invalid url for node provided", e);
                 }
@@ -240,6 +253,12 @@ public class Config {
         }
 
         youtubeKey = config.getString("music_keys.youtube");
+        musicFrameBufferDuration = config.getInt("music.frame_buffer_duration", 5000);
+        nasBufferDuration = config.getInt("music.nas_buffer_duration", 400);
+        musicPrefetchDuration = TimeUnit.SECONDS.toMillis(config.getInt("music.prefetch_seconds", 10));
+        musicBroadcastStreams = config.getBoolean("music.broadcast_streams", true);
+        musicStateFile = config.getString("music.state_file", "music_state.bin");
+        musicResumeRate = config.getDouble("music.resume_rate", 2);
 
         LOG.info("Finished loading configuration!");
 
@@ -323,6 +342,10 @@ public class Config {
         return connectionString;
     }
 
+    public boolean isChangeStreams() {
+        return changeStreams;
+    }
+
     public int getShardNum() {
         return shardNum;
     }
@@ -355,4 +378,41 @@ public class Config {
         return prometheusPort;
     }
 
+    public int getMusicFrameBufferDuration() {
+        return musicFrameBufferDuration;
+    }
+
+    public int getNasBufferDuration() {
+        return nasBufferDuration;
+    }
+
+    /**
+     * @return How long before the end of a track the next one is prefetched in milliseconds, or 0 to disable it.
+     */
+    public long getMusicPrefetchDuration() {
+        return musicPrefetchDuration;
+    }
+
+    /**
+     * @return Whether players that don't use lavalink share a single connection to live streams that several of them
+     * are playing.
+     */
+    public boolean isMusicBroadcastStreams() {
+        return musicBroadcastStreams;
+    }
+
+    /**
+     * @return The file players are saved to on shutdown so they can be resumed when the bot starts again.
+     */
+    public String getMusicStateFile() {
+        return musicStateFile;
+    }
+
+    /**
+     * @return How many players are resumed per second after starting up, or 0 if players shouldn't be saved.
+     */
+    public double getMusicResumeRate() {
+        return musicResumeRate;
+    }
+
 }
@@ -34,8 +34,11 @@ public class DatabaseManager {
     private final com.mongodb.async.client.MongoClient ASYNC_CLIENT;
     private final CodecRegistry CODEC_REGISTRY = CodecRegistries.fromRegistries(
             MongoClientSettings.getDefaultCodecRegistry(),
+            // The packages only decide which classes get a codec. Class names are only stored for polymorphic types,
+            // so a class like GuildPermissions can move between these packages without touching stored documents
             CodecRegistries.fromProviders(PojoCodecProvider.builder().register(
                     "org.cascadebot.cascadebot.data.objects",
+                    "org.cascadebot.cascadebot.permissions.objects",
                     "org.cascadebot.shared"
             ).build())
     );
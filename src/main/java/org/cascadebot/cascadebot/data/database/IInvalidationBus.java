@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.data.database;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts guild data writes so that every process holding a cached copy of a guild
+ * can tell whether its copy is still the latest one.
+ */
+public interface IInvalidationBus {
+
+    /**
+     * Announces that the guild data for a guild has been written with the given state lock.
+     *
+     * @param guildId   The ID of the guild that was written.
+     * @param stateLock The state lock of the data that is now stored in the database.
+     */
+    void publish(long guildId, UUID stateLock);
+
+    void subscribe(IInvalidationListener listener);
+
+    void shutdown();
+
+    @FunctionalInterface
+    interface IInvalidationListener {
+
+        /**
+         * @param guildId   The ID of the guild that changed.
+         * @param stateLock The state lock of the stored data or {@code null} if it was deleted or is unknown.
+         */
+        void onInvalidate(long guildId, UUID stateLock);
+
+    }
+
+}
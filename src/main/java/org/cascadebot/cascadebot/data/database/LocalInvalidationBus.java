@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.data.database;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An in-process bus that delivers writes straight to its subscribers. This is used when the bot
+ * is the only writer or when every writer lives in the same JVM.
+ */
+public class LocalInvalidationBus implements IInvalidationBus {
+
+    private final List<IInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(long guildId, UUID stateLock) {
+        for (IInvalidationListener listener : listeners) {
+            listener.onInvalidate(guildId, stateLock);
+        }
+    }
+
+    @Override
+    public void subscribe(IInvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        listeners.clear();
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.data.database;
+
+import com.mongodb.async.AsyncBatchCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.cascadebot.cascadebot.tasks.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bus backed by a MongoDB change stream on a collection. Every write to the collection, whether it
+ * came from this process, another bot process or the panel, is delivered to the subscribers with the
+ * state lock of the stored document. Publishing is a no-op as the write itself produces the event.
+ * <p>
+ * Change streams require the database to be a replica set or sharded cluster.
+ */
+public class MongoInvalidationBus implements IInvalidationBus {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoInvalidationBus.class);
+
+    private final DatabaseManager databaseManager;
+    private final String collection;
+    private final List<IInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running = true;
+    private volatile BsonDocument resumeToken;
+    private volatile AsyncBatchCursor<ChangeStreamDocument<Document>> cursor;
+
+    public MongoInvalidationBus(DatabaseManager databaseManager, String collection) {
+        this.databaseManager = databaseManager;
+        this.collection = collection;
+        watch();
+    }
+
+    private void watch() {
+        if (!running) return;
+        databaseManager.runAsyncTask(database -> {
+            var stream = database.getCollection(collection)
+                    .watch(List.of(
+                            Aggregates.match(Filters.in("operationType", "insert", "update", "replace", "delete")),
+                            // We only need the state lock, so don't send the whole guild document over the wire
+                            Aggregates.project(Projections.include("operationType", "ns", "documentKey", "fullDocument.stateLock"))
+                    ))
+                    .fullDocument(FullDocument.UPDATE_LOOKUP);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+            stream.batchCursor((batchCursor, throwable) -> {
+                if (throwable != null) {
+                    retry(throwable);
+                    return;
+                }
+                cursor = batchCursor;
+                next(batchCursor);
+            });
+        });
+    }
+
+    private void next(AsyncBatchCursor<ChangeStreamDocument<Document>> batchCursor) {
+        batchCursor.next((batch, throwable) -> {
+            if (!running) return;
+            if (throwable != null) {
+                batchCursor.close();
+                retry(throwable);
+                return;
+            }
+            if (batch != null) {
+                batch.forEach(this::handleChange);
+            }
+            next(batchCursor);
+        });
+    }
+
+    private void retry(Throwable throwable) {
+        if (!running) return;
+        LOGGER.warn("Guild change stream failed, reconnecting in 5 seconds", throwable);
+        Task.getScheduler().schedule(this::watch, 5, TimeUnit.SECONDS);
+    }
+
+    private void handleChange(ChangeStreamDocument<Document> change) {
+        resumeToken = change.getResumeToken();
+        BsonValue id = change.getDocumentKey() == null ? null : change.getDocumentKey().get("_id");
+        if (id == null || !id.isNumber()) return;
+
+        UUID stateLock = null;
+        if (change.getFullDocument() != null && change.getFullDocument().get("stateLock") instanceof UUID) {
+            stateLock = (UUID) change.getFullDocument().get("stateLock");
+        }
+
+        for (IInvalidationListener listener : listeners) {
+            listener.onInvalidate(id.asNumber().longValue(), stateLock);
+        }
+    }
+
+    @Override
+    public void publish(long guildId, UUID stateLock) {
+        // The write itself is published by the change stream
+    }
+
+    @Override
+    public void subscribe(IInvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        listeners.clear();
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+
+}
@@ -5,21 +5,31 @@
 
 package org.cascadebot.cascadebot.data.managers;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.mongodb.client.result.UpdateResult;
 import org.bson.conversions.Bson;
 import org.cascadebot.cascadebot.CascadeBot;
 import org.cascadebot.cascadebot.data.database.DebugLogCallback;
+import org.cascadebot.cascadebot.data.database.IInvalidationBus;
+import org.cascadebot.cascadebot.data.database.LocalInvalidationBus;
 import org.cascadebot.cascadebot.data.objects.GuildData;
 import org.cascadebot.cascadebot.events.GuildSaveListener;
+import org.cascadebot.cascadebot.metrics.Metrics;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
 
 public final class GuildDataManager {
 
-    private static final String COLLECTION = "guilds";
+    public static final String COLLECTION = "guilds";
 
     private static LoadingCache<Long, GuildData> guilds = Caffeine.newBuilder()
             .expireAfterAccess(5, TimeUnit.MINUTES)
@@ -38,6 +48,59 @@ public final class GuildDataManager {
                 return dbData;
             });
 
+    // Cached copies that have been removed because a newer copy exists in the database. These must not be written back
+    // when they are removed otherwise they would overwrite the newer copy. Each copy is only in here until its removal
+    // is handled, so this never affects a later copy of the same guild.
+    private static final Set<GuildData> discardedGuilds = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    // The state locks of our own recent writes, so a late notification of one of them isn't mistaken for another writer
+    private static final Cache<UUID, Boolean> recentWrites = Caffeine.newBuilder()
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
+    private static IInvalidationBus invalidationBus = createBus(new LocalInvalidationBus());
+
+    private static IInvalidationBus createBus(IInvalidationBus bus) {
+        bus.subscribe(GuildDataManager::onInvalidate);
+        return bus;
+    }
+
+    public static void setInvalidationBus(IInvalidationBus bus) {
+        invalidationBus.shutdown();
+        invalidationBus = createBus(bus);
+    }
+
+    private static void onInvalidate(long id, UUID stateLock) {
+        GuildData cached = getGuildDataIfPresent(id);
+        // If the state lock matches, this is our own write (or a no-op) and the cached copy is up to date
+        if (cached == null || cached.getStateLock().equals(stateLock)) return;
+        if (stateLock != null && recentWrites.getIfPresent(stateLock) != null) return;
+        CascadeBot.LOGGER.debug("Guild data for guild ID: {} was changed by another writer, discarding cached copy", id);
+        discard(id, cached);
+    }
+
+    /**
+     * Removes a cached copy of a guild's data <b>without</b> saving it so the next access loads the stored copy. Nothing
+     * happens if the cached copy has already been replaced by another one.
+     *
+     * @param id   The ID of the guild to discard.
+     * @param data The cached copy to discard.
+     */
+    public static void discard(long id, GuildData data) {
+        discardedGuilds.add(data);
+        if (!guilds.asMap().remove(id, data)) {
+            discardedGuilds.remove(data);
+        }
+    }
+
+    /**
+     * @param data A copy of guild data that has been removed from the cache.
+     * @return Whether the copy was discarded, in which case it must not be saved.
+     */
+    public static boolean consumeDiscarded(GuildData data) {
+        return discardedGuilds.remove(data);
+    }
+
 
     public static void update(long id, Bson update) {
         CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
@@ -51,22 +114,60 @@ public final class GuildDataManager {
         });
     }
 
+    /**
+     * Replaces the stored guild data only if it has not been changed by another writer since it was loaded
+     * (compare-and-set on the state lock). If the stored copy has changed, this write is rejected and the
+     * cached copy is discarded so the newer data is loaded on the next access.
+     */
     public static void replace(long id, GuildData data) {
+        // The state lock is regenerated when the data is encoded, so this must be read beforehand
+        UUID expectedLock = data.getStateLock();
         CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
-            database.getCollection(COLLECTION, GuildData.class).replaceOne(eq("_id", id), data, new DebugLogCallback<>("Replaced Guild ID " + id));
+            database.getCollection(COLLECTION, GuildData.class).replaceOne(and(eq("_id", id), eq("stateLock", expectedLock)), data, (result, throwable) -> {
+                if (throwable != null) {
+                    CascadeBot.LOGGER.error("Error replacing guild data for guild ID: " + id, throwable);
+                    return;
+                }
+                handleReplaceResult(id, data, result.getMatchedCount());
+            });
         });
     }
 
     public static void replaceSync(long id, GuildData data) {
+        UUID expectedLock = data.getStateLock();
         CascadeBot.INS.getDatabaseManager().runTask(database -> {
-            database.getCollection(COLLECTION, GuildData.class).replaceOne(eq("_id", id), data);
+            UpdateResult result = database.getCollection(COLLECTION, GuildData.class).replaceOne(and(eq("_id", id), eq("stateLock", expectedLock)), data);
+            handleReplaceResult(id, data, result.getMatchedCount());
         });
     }
 
+    private static void handleReplaceResult(long id, GuildData data, long matchedCount) {
+        if (matchedCount == 0) {
+            Metrics.INS.guildSaveConflicts.inc();
+            CascadeBot.LOGGER.warn("Guild data for guild ID: {} was changed by another writer, our copy was not saved", id);
+            discard(id, data);
+            return;
+        }
+        CascadeBot.LOGGER.debug("Replaced Guild ID " + id);
+        recentWrites.put(data.getStateLock(), Boolean.TRUE);
+        invalidationBus.publish(id, data.getStateLock());
+    }
+
     public static GuildData getGuildData(long id) {
         return guilds.get(id);
     }
 
+    /**
+     * Gets the guild data only if it is already cached. Use this from events that shouldn't cause
+     * a guild to be loaded from the database.
+     *
+     * @param id The ID of the guild.
+     * @return The cached guild data or {@code null} if it isn't loaded.
+     */
+    public static GuildData getGuildDataIfPresent(long id) {
+        return guilds.getIfPresent(id);
+    }
+
     public static LoadingCache<Long, GuildData> getGuilds() {
         return guilds;
     }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.data.managers;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import lombok.Value;
+import org.bson.Document;
+import org.cascadebot.cascadebot.CascadeBot;
+import org.cascadebot.cascadebot.data.database.DebugLogCallback;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.mongodb.client.model.Filters.eq;
+
+/**
+ * Aggregates command usage per guild, per command and per (UTC) day in memory and periodically
+ * flushes it to the database as one batched {@code $inc} upsert per guild-day. This keeps the
+ * command path lock-free and limits writes to at most one per guild per flush.
+ */
+public final class StatisticsManager {
+
+    private static final String COLLECTION = "statistics";
+
+    private static final ConcurrentHashMap<GuildDay, ConcurrentHashMap<String, LongAdder>> usage = new ConcurrentHashMap<>();
+
+    public static void incrementCommandUsage(long guildId, String command) {
+        usage.computeIfAbsent(new GuildDay(guildId, LocalDate.now(ZoneOffset.UTC)), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(command, key -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Writes all pending usage counts to the database asynchronously.
+     */
+    public static void flush() {
+        List<WriteModel<Document>> updates = drainUpdates();
+        if (updates.isEmpty()) return;
+        CascadeBot.INS.getDatabaseManager().runAsyncTask(database -> {
+            database.getCollection(COLLECTION).bulkWrite(updates, new BulkWriteOptions().ordered(false),
+                    new DebugLogCallback<>("Flushed command statistics for guild days", updates.size()));
+        });
+    }
+
+    /**
+     * Writes all pending usage counts to the database, blocking until complete. Used on shutdown.
+     */
+    public static void flushSync() {
+        List<WriteModel<Document>> updates = drainUpdates();
+        if (updates.isEmpty()) return;
+        CascadeBot.INS.getDatabaseManager().runTask(database -> {
+            database.getCollection(COLLECTION).bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        });
+    }
+
+    private static List<WriteModel<Document>> drainUpdates() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        for (Map.Entry<GuildDay, ConcurrentHashMap<String, LongAdder>> entry : usage.entrySet()) {
+            GuildDay guildDay = entry.getKey();
+            // Previous days no longer receive increments so they can be dropped once drained
+            if (guildDay.getDay().isBefore(today)) {
+                usage.remove(guildDay);
+            }
+
+            Document increments = new Document();
+            long total = 0;
+            for (Map.Entry<String, LongAdder> commandEntry : entry.getValue().entrySet()) {
+                long count = commandEntry.getValue().sumThenReset();
+                if (count == 0) continue;
+                increments.append("commands." + commandEntry.getKey(), count);
+                total += count;
+            }
+            if (total == 0) continue;
+            increments.append("total", total);
+
+            updates.add(new UpdateOneModel<>(
+                    eq("_id", new Document("guild", guildDay.getGuildId()).append("date", guildDay.getDay().toString())),
+                    new Document("$inc", increments),
+                    new UpdateOptions().upsert(true)
+            ));
+        }
+        return updates;
+    }
+
+    @Value
+    private static class GuildDay {
+
+        private long guildId;
+        private LocalDate day;
+
+    }
+
+}
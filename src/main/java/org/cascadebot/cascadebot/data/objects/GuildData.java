@@ -8,7 +8,6 @@ package org.cascadebot.cascadebot.data.objects;
 import com.google.common.collect.Sets;
 import de.bild.codec.annotations.Id;
 import de.bild.codec.annotations.PreSave;
-import de.bild.codec.annotations.Transient;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -21,8 +20,6 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import net.dv8tion.jda.core.entities.Message;
-import net.dv8tion.jda.core.entities.MessageChannel;
 import org.bson.codecs.pojo.annotations.BsonDiscriminator;
 import org.bson.codecs.pojo.annotations.BsonIgnore;
 import org.cascadebot.cascadebot.CascadeBot;
@@ -30,9 +27,7 @@ import org.cascadebot.cascadebot.commandmeta.ICommandMain;
 import org.cascadebot.cascadebot.commandmeta.Module;
 import org.cascadebot.cascadebot.commandmeta.ModuleFlag;
 import org.cascadebot.cascadebot.data.Config;
-import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
-import org.cascadebot.cascadebot.utils.buttons.ButtonsCache;
-import org.cascadebot.cascadebot.utils.pagination.PageCache;
+import org.cascadebot.cascadebot.permissions.objects.GuildPermissions;
 
 @Getter
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -68,18 +63,10 @@ public class GuildData {
 
     //endregion
 
-    //region Transient fields
-    @Transient
-    private ButtonsCache buttonsCache = new ButtonsCache(5);
-
-    @Transient
-    private PageCache pageCache = new PageCache();
-
-    //endregion
-
     @PreSave
     public void preSave() {
         this.stateLock = UUID.randomUUID();
+        guildPermissions.compact();
     }
 
     public GuildData(long guildID) {
@@ -179,11 +166,6 @@ public class GuildData {
         return this.enabledFlags.contains(flag);
     }
 
-    public void addButtonGroup(MessageChannel channel, Message message, ButtonGroup group) {
-        group.setMessage(message.getIdLong());
-        buttonsCache.put(channel.getIdLong(), message.getIdLong(), group);
-    }
-
     public GuildSettingsCore getSettings() {
         return guildSettings;
     }
@@ -10,6 +10,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.bson.types.Binary;
 import org.bson.types.ObjectId;
 
 import java.util.List;
@@ -28,6 +29,10 @@ public class Playlist {
     @Setter
     private List<String> tracks;
 
+    // The tracks encoded by TrackSerializer, in the same order as the urls. Playlists saved before these were stored
+    // don't have them, in which case every track is resolved from its url.
+    private Binary encodedTracks;
+
     public Playlist(long ownerId, String name, PlaylistType scope, List<String> tracks) {
         this.ownerID = ownerId;
         this.name = name;
@@ -35,12 +40,24 @@ public class Playlist {
         this.tracks = tracks;
     }
 
+    public Playlist(long ownerId, String name, PlaylistType scope, List<String> tracks, byte[] encodedTracks) {
+        this(ownerId, name, scope, tracks);
+        setEncodedTracks(encodedTracks);
+    }
+
+    public void setEncodedTracks(byte[] encodedTracks) {
+        this.encodedTracks = encodedTracks == null ? null : new Binary(encodedTracks);
+    }
+
     public void addTrack(String url) {
         tracks.add(url);
     }
 
     public void removeTrack(String url) {
-        tracks.remove(url);
+        // The encoded tracks are matched to urls by position so they can't be used once a url is removed
+        if (tracks.remove(url)) {
+            encodedTracks = null;
+        }
     }
 
 }
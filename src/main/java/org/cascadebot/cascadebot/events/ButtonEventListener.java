@@ -10,46 +10,32 @@ import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.events.message.MessageDeleteEvent;
 import net.dv8tion.jda.core.events.message.react.MessageReactionAddEvent;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
-import org.cascadebot.cascadebot.CascadeBot;
-import org.cascadebot.cascadebot.data.managers.GuildDataManager;
-import org.cascadebot.cascadebot.data.objects.GuildData;
 import org.cascadebot.cascadebot.metrics.Metrics;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
-import org.cascadebot.cascadebot.utils.buttons.ButtonsCache;
+import org.cascadebot.cascadebot.utils.buttons.ButtonRegistry;
 
 public class ButtonEventListener extends ListenerAdapter {
 
     @Override
     public void onMessageReactionAdd(MessageReactionAddEvent e) {
+        // Checked first as most reactions aren't on buttoned messages
+        ButtonGroup group = ButtonRegistry.get(e.getMessageIdLong());
+        if (group == null) return;
         if (e.getMember().equals(e.getGuild().getSelfMember())) {
             return;
         }
         if (e.getChannel().getType().equals(ChannelType.TEXT)) {
             TextChannel channel = (TextChannel) e.getChannel();
-            GuildData data = GuildDataManager.getGuildData(channel.getGuild().getIdLong());
-            ButtonsCache cache = data.getButtonsCache();
-            if (cache.containsKey(channel.getIdLong())) {
-                if (cache.get(channel.getIdLong()).containsKey(e.getMessageIdLong())) {
-                    ButtonGroup group = cache.get(channel.getIdLong()).get(e.getMessageIdLong());
-                    Metrics.INS.buttonsPressed.labels(e.getReaction().getReactionEmote().getName()).inc();
-                    e.getChannel().getMessageById(e.getMessageId()).queue(message -> group.handleButton(e.getMember(), channel, message, e.getReactionEmote()));
-                    e.getReaction().removeReaction(e.getMember().getUser()).queue(); //Idk if we want to allow other reactions on the message
-                    //TODO perms checking
-                }
-            }
+            Metrics.INS.buttonsPressed.labels(e.getReaction().getReactionEmote().getName()).inc();
+            e.getChannel().getMessageById(e.getMessageId()).queue(message -> group.handleButton(e.getMember(), channel, message, e.getReactionEmote()));
+            e.getReaction().removeReaction(e.getMember().getUser()).queue(); //Idk if we want to allow other reactions on the message
+            //TODO perms checking
         }
     }
 
     @Override
     public void onMessageDelete(MessageDeleteEvent e) {
-        if (e.getChannel().getType().equals(ChannelType.TEXT)) {
-            TextChannel channel = (TextChannel) e.getChannel();
-            GuildData data = GuildDataManager.getGuildData(channel.getGuild().getIdLong());
-            ButtonsCache cache = data.getButtonsCache();
-            if (cache.containsKey(channel.getIdLong())) {
-                cache.get(channel.getIdLong()).remove(e.getMessageIdLong());
-            }
-        }
+        ButtonRegistry.remove(e.getMessageIdLong());
     }
 
 }
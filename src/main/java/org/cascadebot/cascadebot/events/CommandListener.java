@@ -22,6 +22,7 @@ import org.cascadebot.cascadebot.commandmeta.ICommandRestricted;
 import org.cascadebot.cascadebot.commandmeta.ModuleFlag;
 import org.cascadebot.cascadebot.data.Config;
 import org.cascadebot.cascadebot.data.managers.GuildDataManager;
+import org.cascadebot.cascadebot.data.managers.StatisticsManager;
 import org.cascadebot.cascadebot.data.objects.GuildData;
 import org.cascadebot.cascadebot.data.objects.Tag;
 import org.cascadebot.cascadebot.messaging.Messaging;
@@ -240,6 +241,7 @@ public class CommandListener extends ListenerAdapter {
                     Arrays.toString(context.getArgs()));
 
             Metrics.INS.commandsExecuted.labels(command.getClass().getSimpleName()).inc();
+            StatisticsManager.incrementCommandUsage(context.getGuild().getIdLong(), command.getClass().getSimpleName());
             Summary.Timer commandTimer = Metrics.INS.commandExecutionTime.labels(command.getClass().getSimpleName()).startTimer();
             try {
                 command.onCommand(context.getMember(), context);
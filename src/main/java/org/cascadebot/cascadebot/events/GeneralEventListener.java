@@ -7,22 +7,31 @@ package org.cascadebot.cascadebot.events;
 
 import net.dv8tion.jda.bot.sharding.ShardManager;
 import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.events.ReadyEvent;
 import net.dv8tion.jda.core.events.StatusChangeEvent;
+import net.dv8tion.jda.core.events.channel.category.update.CategoryUpdatePermissionsEvent;
+import net.dv8tion.jda.core.events.channel.text.update.TextChannelUpdatePermissionsEvent;
+import net.dv8tion.jda.core.events.channel.voice.update.VoiceChannelUpdatePermissionsEvent;
 import net.dv8tion.jda.core.events.guild.GuildJoinEvent;
 import net.dv8tion.jda.core.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberLeaveEvent;
 import net.dv8tion.jda.core.events.guild.member.GuildMemberRoleAddEvent;
 import net.dv8tion.jda.core.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.core.events.guild.update.GuildUpdateOwnerEvent;
 import net.dv8tion.jda.core.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.core.events.role.update.RoleUpdatePermissionsEvent;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
 import org.apache.commons.lang3.StringUtils;
 import org.cascadebot.cascadebot.CascadeBot;
 import org.cascadebot.cascadebot.UnicodeConstants;
 import org.cascadebot.cascadebot.data.Config;
 import org.cascadebot.cascadebot.data.managers.GuildDataManager;
+import org.cascadebot.cascadebot.data.objects.GuildData;
 import org.cascadebot.cascadebot.messaging.MessageType;
 import org.cascadebot.cascadebot.permissions.PermissionsManager;
 import org.cascadebot.cascadebot.permissions.objects.Group;
+import org.cascadebot.cascadebot.permissions.objects.GuildPermissions;
 import org.cascadebot.cascadebot.utils.FormatUtils;
 
 public class GeneralEventListener extends ListenerAdapter {
@@ -31,6 +40,7 @@ public class GeneralEventListener extends ListenerAdapter {
     public void onReady(ReadyEvent event) {
         ShardManager shardManager = CascadeBot.INS.getShardManager();
         if (shardManager.getShards().size() == shardManager.getShardsTotal()) {
+            CascadeBot.INS.getPermissionsManager().buildSecurityLevels();
             CascadeBot.INS.run();
             Config.INS.getEventWebhook().send(
                     MessageType.SUCCESS.getEmoji() + " All shards ready!"
@@ -80,22 +90,77 @@ public class GeneralEventListener extends ListenerAdapter {
 
     @Override
     public void onRoleDelete(RoleDeleteEvent event) {
-        for (Group group : GuildDataManager.getGuildData(event.getGuild().getIdLong()).getPermissions().getGroups()) {
-            group.unlinkRole(event.getRole().getIdLong());
+        GuildPermissions permissions = GuildDataManager.getGuildData(event.getGuild().getIdLong()).getPermissions();
+        for (Group group : permissions.getGroups()) {
+            permissions.unlinkRole(group, event.getRole().getIdLong());
         }
     }
 
     @Override
     public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
-        if (event.getGuild().getIdLong() == Config.INS.getOfficialServerId()) {
-            CascadeBot.INS.getPermissionsManager().clearCacheForUser(event.getUser().getIdLong());
-        }
+        onMemberRolesChanged(event.getGuild(), event.getUser().getIdLong(), event.getMember());
     }
 
     @Override
     public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
-        if (event.getGuild().getIdLong() == Config.INS.getOfficialServerId()) {
-            CascadeBot.INS.getPermissionsManager().clearCacheForUser(event.getUser().getIdLong());
+        onMemberRolesChanged(event.getGuild(), event.getUser().getIdLong(), event.getMember());
+    }
+
+    @Override
+    public void onGuildMemberLeave(GuildMemberLeaveEvent event) {
+        onMemberRolesChanged(event.getGuild(), event.getUser().getIdLong(), null);
+    }
+
+    private void onMemberRolesChanged(Guild guild, long userId, Member member) {
+        if (guild.getIdLong() == Config.INS.getOfficialServerId()) {
+            CascadeBot.INS.getPermissionsManager().updateSecurityLevel(userId, member);
+            // Official roles grant permissions in every guild
+            for (GuildData data : GuildDataManager.getGuilds().asMap().values()) {
+                data.getPermissions().invalidateMember(userId);
+            }
+        } else {
+            invalidateMember(guild, userId);
+        }
+    }
+
+    // The events below change Discord permissions which are used as a fallback for Cascade permissions
+
+    @Override
+    public void onRoleUpdatePermissions(RoleUpdatePermissionsEvent event) {
+        invalidateGuild(event.getGuild());
+    }
+
+    @Override
+    public void onTextChannelUpdatePermissions(TextChannelUpdatePermissionsEvent event) {
+        invalidateGuild(event.getGuild());
+    }
+
+    @Override
+    public void onVoiceChannelUpdatePermissions(VoiceChannelUpdatePermissionsEvent event) {
+        invalidateGuild(event.getGuild());
+    }
+
+    @Override
+    public void onCategoryUpdatePermissions(CategoryUpdatePermissionsEvent event) {
+        invalidateGuild(event.getGuild());
+    }
+
+    @Override
+    public void onGuildUpdateOwner(GuildUpdateOwnerEvent event) {
+        invalidateGuild(event.getGuild());
+    }
+
+    private void invalidateMember(Guild guild, long userId) {
+        GuildData data = GuildDataManager.getGuildDataIfPresent(guild.getIdLong());
+        if (data != null) {
+            data.getPermissions().invalidateMember(userId);
+        }
+    }
+
+    private void invalidateGuild(Guild guild) {
+        GuildData data = GuildDataManager.getGuildDataIfPresent(guild.getIdLong());
+        if (data != null) {
+            data.getPermissions().invalidateAll();
         }
     }
 
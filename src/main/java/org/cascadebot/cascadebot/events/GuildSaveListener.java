@@ -18,10 +18,13 @@ public class GuildSaveListener implements RemovalListener<Long, GuildData> {
 
     @Override
     public void onRemoval(@Nullable Long aLong, @Nullable GuildData data, @Nonnull RemovalCause removalCause) {
-        if (aLong == null) return;
+        if (aLong == null || data == null) return;
+        if (GuildDataManager.consumeDiscarded(data)) {
+            CascadeBot.LOGGER.debug("Guild with ID: {} was discarded as a newer copy is stored in the database", aLong);
+            return;
+        }
         GuildDataManager.replace(aLong, data);
         CascadeBot.LOGGER.debug("Guild with ID: {} was saved to the database as it was removed from the map due to: {}", aLong, removalCause.toString());
-        // TODO: FUTURE: Use this for statistics?
     }
 
 }
@@ -8,9 +8,11 @@ package org.cascadebot.cascadebot.events;
 import com.sedmelluq.discord.lavaplayer.player.event.AudioEvent;
 import com.sedmelluq.discord.lavaplayer.player.event.AudioEventListener;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
 import lavalink.client.player.event.IPlayerEventListener;
 import lavalink.client.player.event.PlayerEvent;
 import lavalink.client.player.event.TrackEndEvent;
+import lavalink.client.player.event.TrackStartEvent;
 import org.cascadebot.cascadebot.CascadeBot;
 import org.cascadebot.cascadebot.metrics.Metrics;
 import org.cascadebot.cascadebot.music.CascadePlayer;
@@ -29,19 +31,26 @@ public class PlayerListener implements IPlayerEventListener, AudioEventListener
 
     @Override
     public void onEvent(PlayerEvent playerEvent) {
-        if (playerEvent instanceof TrackEndEvent) {
-            onEnd(((TrackEndEvent) playerEvent).getTrack());
+        if (playerEvent instanceof TrackStartEvent) {
+            player.onTrackStart(((TrackStartEvent) playerEvent).getTrack());
+        } else if (playerEvent instanceof TrackEndEvent) {
+            onEnd(((TrackEndEvent) playerEvent).getTrack(), ((TrackEndEvent) playerEvent).getReason());
         }
     }
 
     @Override
     public void onEvent(AudioEvent audioEvent) {
-        if (audioEvent instanceof com.sedmelluq.discord.lavaplayer.player.event.TrackEndEvent) {
-            onEnd(((com.sedmelluq.discord.lavaplayer.player.event.TrackEndEvent) audioEvent).track);
+        if (audioEvent instanceof com.sedmelluq.discord.lavaplayer.player.event.TrackStartEvent) {
+            player.onTrackStart(((com.sedmelluq.discord.lavaplayer.player.event.TrackStartEvent) audioEvent).track);
+        } else if (audioEvent instanceof com.sedmelluq.discord.lavaplayer.player.event.TrackEndEvent) {
+            com.sedmelluq.discord.lavaplayer.player.event.TrackEndEvent endEvent = (com.sedmelluq.discord.lavaplayer.player.event.TrackEndEvent) audioEvent;
+            onEnd(endEvent.track, endEvent.endReason);
         }
     }
 
-    private void onEnd(AudioTrack track) {
+    private void onEnd(AudioTrack track, AudioTrackEndReason endReason) {
+        // The player has already started the track that replaced this one
+        if (endReason == AudioTrackEndReason.REPLACED) return;
         songPlayCount++;
         Metrics.INS.tracksPlayed.inc();
         try {
@@ -57,15 +66,15 @@ public class PlayerListener implements IPlayerEventListener, AudioEventListener
                 }
                 // Take the next track in the queue, remove it from the queue and play it
                 AudioTrack audioTrack = player.getQueue().remove();
-                player.getPlayer().playTrack(audioTrack);
+                player.playNext(audioTrack);
             } else if (player.getLoopMode().equals(CascadePlayer.LoopMode.SONG)) {
                 // Take the song that just finished and repeat it
-                player.getPlayer().playTrack(track.makeClone());
+                player.playNext(track.makeClone());
             }
         } catch (NoSuchElementException e) {
             // No more songs left in the queue
             songPlayCount = 0;
-            // TODO: Anything more to this?
+            player.markIdle();
         }
     }
 
@@ -14,13 +14,27 @@ import net.dv8tion.jda.core.hooks.ListenerAdapter;
 import org.cascadebot.cascadebot.CascadeBot;
 import org.cascadebot.cascadebot.commands.music.SkipCommand;
 import org.cascadebot.cascadebot.data.managers.GuildDataManager;
+import org.cascadebot.cascadebot.music.CascadePlayer;
 import org.cascadebot.cascadebot.utils.votes.VoteButtonGroup;
 
 public class VoiceEventListener extends ListenerAdapter {
 
     @Override
     public void onGenericGuildVoice(GenericGuildVoiceEvent event) {
-        // TODO: handle leaving & moving of players so we don't get lonely :(
+        if (event instanceof GuildVoiceLeaveEvent && event.getMember().equals(event.getGuild().getSelfMember())) {
+            // Players that are disconnected are reclaimed straight away rather than waiting to time out
+            CascadeBot.INS.getMusicHandler().onDisconnect(event.getGuild().getIdLong());
+            return;
+        }
+        if (event instanceof GuildVoiceJoinEvent && event.getMember().equals(event.getGuild().getSelfMember())) {
+            // Restores the player if it was hibernated so it's ready as soon as the bot is in the channel, and starts the
+            // track that was playing if it was restored before the bot joined
+            CascadePlayer player = CascadeBot.INS.getMusicHandler().getPlayer(event.getGuild().getIdLong());
+            if (player != null) {
+                player.onConnected();
+            }
+        }
+        // TODO: handle moving of players so we don't get lonely :(
         if (!event.getGuild().getSelfMember().getVoiceState().inVoiceChannel()) return;
 
         VoiceChannel botCurrentChannel = event.getGuild().getSelfMember().getVoiceState().getChannel();
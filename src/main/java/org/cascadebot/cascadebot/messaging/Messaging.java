@@ -21,19 +21,20 @@ import org.cascadebot.cascadebot.Constants;
 import org.cascadebot.cascadebot.Environment;
 import org.cascadebot.cascadebot.MDCException;
 import org.cascadebot.cascadebot.UnicodeConstants;
-import org.cascadebot.cascadebot.data.managers.GuildDataManager;
-import org.cascadebot.cascadebot.data.objects.GuildData;
 import org.cascadebot.cascadebot.exceptions.DiscordPermissionException;
 import org.cascadebot.cascadebot.metrics.Metrics;
 import org.cascadebot.cascadebot.utils.FormatUtils;
 import org.cascadebot.cascadebot.utils.PasteUtils;
 import org.cascadebot.cascadebot.utils.buttons.Button;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
+import org.cascadebot.cascadebot.utils.buttons.ButtonRegistry;
 import org.cascadebot.cascadebot.utils.pagination.Page;
 import org.cascadebot.cascadebot.utils.pagination.PageCache;
+import org.cascadebot.cascadebot.utils.pagination.PageProvider;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
 
 @UtilityClass
 public final class Messaging {
@@ -177,7 +178,7 @@ public final class Messaging {
         RequestFuture<Message> future = channel.sendMessage(message).submit();
         future.thenAccept((sentMessage -> {
             buttonGroup.addButtonsToMessage(sentMessage);
-            GuildDataManager.getGuildData(sentMessage.getGuild().getIdLong()).addButtonGroup(channel, sentMessage, buttonGroup);
+            ButtonRegistry.register(sentMessage, buttonGroup);
         }));
         return future;
     }
@@ -193,46 +194,53 @@ public final class Messaging {
     }
 
     public static RequestFuture<Message> sendPagedMessage(TextChannel channel, Member owner, List<Page> pages) {
+        return sendPagedMessage(channel, owner, PageProvider.of(pages));
+    }
+
+    /**
+     * Sends a paged message with buttons for page navigation. Only the first page is rendered when the message is
+     * sent, the rest are rendered when they're navigated to.
+     *
+     * @param channel  The channel to send the message in.
+     * @param owner    The member that can use the buttons.
+     * @param provider The provider of the pages.
+     * @return A future for the sent message.
+     */
+    public static RequestFuture<Message> sendPagedMessage(TextChannel channel, Member owner, PageProvider provider) {
         ButtonGroup group = new ButtonGroup(owner.getUser().getIdLong(), channel.getIdLong(), channel.getGuild().getIdLong());
         group.addButton(new Button.UnicodeButton(UnicodeConstants.REWIND, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataManager.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
-            pageGroup.getPage(1).pageShow(message, 1, pageGroup.getPages());
-            pageGroup.setCurrentPage(1);
+            showPage(message, pages -> 1);
         }));
         group.addButton(new Button.UnicodeButton(UnicodeConstants.LEFT_ARROW, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataManager.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
-            int newPage = pageGroup.getCurrentPage() - 1;
-            if (newPage < 1) {
-                return;
-            }
-            pageGroup.getPage(newPage).pageShow(message, newPage, pageGroup.getPages());
-            pageGroup.setCurrentPage(newPage);
+            showPage(message, pages -> pages.getCurrentPage() - 1);
         }));
         group.addButton(new Button.UnicodeButton(UnicodeConstants.RIGHT_ARROW, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataManager.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
-            int newPage = pageGroup.getCurrentPage() + 1;
-            if (newPage > pageGroup.getPages()) {
-                return;
-            }
-            pageGroup.getPage(newPage).pageShow(message, newPage, pageGroup.getPages());
-            pageGroup.setCurrentPage(newPage);
+            showPage(message, pages -> pages.getCurrentPage() + 1);
         }));
         group.addButton(new Button.UnicodeButton(UnicodeConstants.FAST_FORWARD, (runner, textChannel, message) -> {
-            PageCache.Pages pageGroup = GuildDataManager.getGuildData(textChannel.getGuild().getIdLong()).getPageCache().get(message.getIdLong());
-            pageGroup.getPage(pageGroup.getPages()).pageShow(message, pageGroup.getPages(), pageGroup.getPages());
-            pageGroup.setCurrentPage(pageGroup.getPages());
+            showPage(message, PageCache.Pages::getPages);
         }));
-        RequestFuture<Message> future = channel.sendMessage("Paged message loading...").submit();
+        RequestFuture<Message> future = channel.sendMessage(provider.getPage(1).render(channel.getGuild(), 1, provider.getPageCount())).submit();
         future.thenAccept(sentMessage -> {
-            pages.get(0).pageShow(sentMessage, 1, pages.size());
+            PageCache.put(sentMessage.getIdLong(), provider);
             group.addButtonsToMessage(sentMessage);
             group.setMessage(sentMessage.getIdLong());
-            GuildData guildData = GuildDataManager.getGuildData(channel.getGuild().getIdLong());
-            guildData.addButtonGroup(channel, sentMessage, group);
-            guildData.getPageCache().put(pages, sentMessage.getIdLong());
+            ButtonRegistry.register(sentMessage, group);
         });
         return future;
     }
 
+    private static void showPage(Message message, ToIntFunction<PageCache.Pages> pageFunction) {
+        PageCache.Pages pages = PageCache.get(message.getIdLong());
+        // The pages have expired so there's nothing to show
+        if (pages == null) return;
+        int total = pages.getPages();
+        int requested = pageFunction.applyAsInt(pages);
+        // The number of pages can change while the message is open, so the page is kept in range
+        int page = Math.max(1, Math.min(requested, total));
+        if (total == 0 || (requested != page && page == pages.getCurrentPage())) return;
+        pages.getPage(page).pageShow(message, page, total);
+        pages.setCurrentPage(page);
+    }
 
 }
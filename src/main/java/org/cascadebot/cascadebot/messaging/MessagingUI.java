@@ -23,6 +23,7 @@ import org.cascadebot.cascadebot.utils.FormatUtils;
 import org.cascadebot.cascadebot.utils.buttons.Button;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
 import org.cascadebot.cascadebot.utils.pagination.Page;
+import org.cascadebot.cascadebot.utils.pagination.PageProvider;
 import spark.utils.CollectionUtils;
 
 import java.io.File;
@@ -113,6 +114,16 @@ public class MessagingUI {
         Messaging.sendPagedMessage(context.getChannel(), context.getMember(), pages);
     }
 
+    /**
+     * Sends a paged message with buttons for page navigation, rendering each page only when it's shown.
+     *
+     * @param provider The provider of the pages.
+     * @see PageProvider
+     */
+    public void sendPagedMessage(PageProvider provider) {
+        Messaging.sendPagedMessage(context.getChannel(), context.getMember(), provider);
+    }
+
     /**
      * Sends a permission error.
      *
@@ -6,16 +6,28 @@
 package org.cascadebot.cascadebot.metrics;
 
 import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
 import io.prometheus.client.GaugeMetricFamily;
-import lavalink.client.io.Link;
+import lavalink.client.io.LavalinkSocket;
+import lavalink.client.io.jda.JdaLavalink;
+import lavalink.client.io.jda.JdaLink;
 import net.dv8tion.jda.bot.sharding.ShardManager;
 import net.dv8tion.jda.core.JDA;
 import org.cascadebot.cascadebot.CascadeBot;
+import org.cascadebot.cascadebot.music.CascadePlayer;
+import org.cascadebot.cascadebot.music.LavaPlayerAudioSendHandler;
 import org.cascadebot.cascadebot.music.MusicHandler;
+import org.cascadebot.cascadebot.music.NodeBalancer;
+import org.cascadebot.cascadebot.music.NodeHealth;
+import org.cascadebot.cascadebot.music.PlayerSnapshot;
+import org.cascadebot.cascadebot.music.StreamBroadcast;
+import org.cascadebot.cascadebot.music.TrackCache;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class BotMetricsCollector extends Collector {
 
@@ -45,6 +57,13 @@ public class BotMetricsCollector extends Collector {
                 metricFamilySamples.add(entities);
             }
 
+            if (CascadeBot.INS.getMusicHandler() != null) {
+                metricFamilySamples.addAll(collectPlayers(CascadeBot.INS.getMusicHandler()));
+                if (MusicHandler.isLavalinkEnabled()) {
+                    metricFamilySamples.addAll(collectNodes(MusicHandler.getLavalink(), MusicHandler.getNodeBalancer()));
+                }
+            }
+
             GaugeMetricFamily uptime = new GaugeMetricFamily("cascade_uptime", "", List.of());
             uptime.addMetric(List.of(), CascadeBot.INS.getUptime());
             metricFamilySamples.add(uptime);
@@ -53,4 +72,93 @@ public class BotMetricsCollector extends Collector {
         return metricFamilySamples;
     }
 
+    private List<MetricFamilySamples> collectPlayers(MusicHandler musicHandler) {
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, Long> memory = new HashMap<>();
+        long maxMemory = 0;
+        long queuedTracks = 0;
+        for (CascadePlayer player : musicHandler.getPlayers()) {
+            long playerMemory = player.estimateMemoryUsage();
+            // Paused players still count as active for reclaiming, but are split out here as they aren't sending audio
+            String state = player.getState() == CascadePlayer.PlayerState.ACTIVE && player.getPlayer().isPaused() ? "paused" : player.getState().name().toLowerCase();
+            counts.merge(state, 1, Integer::sum);
+            memory.merge(state, playerMemory, Long::sum);
+            maxMemory = Math.max(maxMemory, playerMemory);
+            queuedTracks += player.getQueue().size();
+        }
+
+        GaugeMetricFamily players = new GaugeMetricFamily("cascade_music_players", "The number of music players in each state", List.of("state"));
+        GaugeMetricFamily playerMemory = new GaugeMetricFamily("cascade_music_player_memory_bytes", "The estimated memory used by music players in each state", List.of("state"));
+        for (String state : List.of("active", "paused", "idle")) {
+            players.addMetric(List.of(state), counts.getOrDefault(state, 0));
+            playerMemory.addMetric(List.of(state), memory.getOrDefault(state, 0L));
+        }
+        long hibernatedMemory = 0;
+        for (PlayerSnapshot snapshot : musicHandler.getHibernatedPlayers()) {
+            hibernatedMemory += snapshot.estimateMemoryUsage();
+        }
+        players.addMetric(List.of("hibernated"), musicHandler.getHibernatedPlayers().size());
+        playerMemory.addMetric(List.of("hibernated"), hibernatedMemory);
+        GaugeMetricFamily queued = new GaugeMetricFamily("cascade_music_queued_tracks", "The number of tracks queued across every music player", queuedTracks);
+        GaugeMetricFamily maxPlayerMemory = new GaugeMetricFamily("cascade_music_player_memory_max_bytes", "The estimated memory used by the largest music player", maxMemory);
+        GaugeMetricFamily trackCache = new GaugeMetricFamily("cascade_track_cache_bytes", "The estimated size of the track cache", TrackCache.getWeightedSize());
+
+        int broadcastCount = 0;
+        int subscribers = 0;
+        for (StreamBroadcast broadcast : StreamBroadcast.getBroadcasts()) {
+            broadcastCount++;
+            subscribers += broadcast.getSubscribers();
+        }
+        GaugeMetricFamily broadcasts = new GaugeMetricFamily("cascade_music_broadcasts", "The number of live streams being broadcast to players", broadcastCount);
+        GaugeMetricFamily broadcastSubscribers = new GaugeMetricFamily("cascade_music_broadcast_subscribers", "The number of players playing a broadcast live stream", subscribers);
+
+        CounterMetricFamily frames = new CounterMetricFamily("cascade_music_audio_frames_total", "The number of audio frames requested by discord from players not using lavalink while a track was playing, by whether one was ready to send", List.of("result"));
+        frames.addMetric(List.of("provided"), LavaPlayerAudioSendHandler.getFramesProvided());
+        frames.addMetric(List.of("missed"), LavaPlayerAudioSendHandler.getFramesMissed());
+
+        return List.of(players, playerMemory, queued, maxPlayerMemory, trackCache, broadcasts, broadcastSubscribers, frames);
+    }
+
+    private List<MetricFamilySamples> collectNodes(JdaLavalink lavalink, NodeBalancer nodeBalancer) {
+        Map<LavalinkSocket, Integer> links = new HashMap<>();
+        for (JdaLink link : lavalink.getLinks()) {
+            LavalinkSocket node = link.getNode(false);
+            if (node != null) {
+                links.merge(node, 1, Integer::sum);
+            }
+        }
+
+        List<String> labels = List.of("node");
+        GaugeMetricFamily available = new GaugeMetricFamily("cascade_lavalink_node_available", "Whether the bot is connected to the lavalink node", labels);
+        GaugeMetricFamily healthy = new GaugeMetricFamily("cascade_lavalink_node_healthy", "Whether the lavalink node is healthy enough to keep its players", labels);
+        GaugeMetricFamily nodeLinks = new GaugeMetricFamily("cascade_lavalink_node_links", "The number of guilds using the lavalink node", labels);
+        GaugeMetricFamily nodePlayers = new GaugeMetricFamily("cascade_lavalink_node_players", "The number of players on the lavalink node", List.of("node", "state"));
+        GaugeMetricFamily cpu = new GaugeMetricFamily("cascade_lavalink_node_cpu_load", "The CPU load of the lavalink node", List.of("node", "type"));
+        GaugeMetricFamily frames = new GaugeMetricFamily("cascade_lavalink_node_frames_lost", "The average number of frames lost per player per minute on the lavalink node", List.of("node", "type"));
+        GaugeMetricFamily memory = new GaugeMetricFamily("cascade_lavalink_node_memory_usage", "The fraction of the lavalink node's memory that is in use", labels);
+        GaugeMetricFamily penalty = new GaugeMetricFamily("cascade_lavalink_node_penalty", "The penalty added to the lavalink node when picking a node for new players", labels);
+        GaugeMetricFamily statsAge = new GaugeMetricFamily("cascade_lavalink_node_stats_age_seconds", "The time since the lavalink node last sent stats", labels);
+
+        for (LavalinkSocket node : lavalink.getNodes()) {
+            String name = node.getName();
+            available.addMetric(List.of(name), node.isAvailable() ? 1 : 0);
+            nodeLinks.addMetric(List.of(name), links.getOrDefault(node, 0));
+
+            NodeHealth health = nodeBalancer.getHealth(node);
+            if (health == null) continue;
+            healthy.addMetric(List.of(name), health.isHealthy() ? 1 : 0);
+            nodePlayers.addMetric(List.of(name, "all"), health.getPlayers());
+            nodePlayers.addMetric(List.of(name, "playing"), health.getPlayingPlayers());
+            cpu.addMetric(List.of(name, "system"), health.getSystemLoad());
+            cpu.addMetric(List.of(name, "lavalink"), health.getLavalinkLoad());
+            frames.addMetric(List.of(name, "deficit"), Math.max(0, health.getFramesDeficit()));
+            frames.addMetric(List.of(name, "nulled"), Math.max(0, health.getFramesNulled()));
+            memory.addMetric(List.of(name), health.getMemoryUsage());
+            penalty.addMetric(List.of(name), health.getPenalty());
+            statsAge.addMetric(List.of(name), health.getStatsAge() / 1000.0);
+        }
+
+        return List.of(available, healthy, nodeLinks, nodePlayers, cpu, frames, memory, penalty, statsAge);
+    }
+
 }
@@ -6,6 +6,7 @@
 package org.cascadebot.cascadebot.metrics;
 
 import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
 import io.prometheus.client.SimpleCollector;
 import io.prometheus.client.Summary;
 import io.prometheus.client.cache.caffeine.CacheMetricsCollector;
@@ -55,8 +56,85 @@ public class Metrics {
             .name("cascade_tracks_played_total")
             .help("The number of tracks that have been played in this session")
             .register();
+    public Counter playersReclaimed = Counter.build()
+            .name("cascade_music_players_reclaimed_total")
+            .help("The number of idle or disconnected music players that have been reclaimed in this session")
+            .register();
+    public Counter playersHibernated = Counter.build()
+            .name("cascade_music_players_hibernated_total")
+            .help("The number of idle or disconnected music players that have been hibernated in this session")
+            .register();
+    public Counter playersRehydrated = Counter.build()
+            .name("cascade_music_players_rehydrated_total")
+            .help("The number of hibernated music players that have been restored in this session")
+            .register();
+    public Counter hibernationMemoryReclaimed = Counter.build()
+            .name("cascade_music_hibernation_reclaimed_bytes_total")
+            .help("The estimated memory reclaimed by hibernating music players in this session")
+            .register();
+    public Counter playersResumed = Counter.build()
+            .name("cascade_music_players_resumed_total")
+            .help("The number of music players saved on shutdown that have been resumed in this session")
+            .labelNames("result")
+            .register();
+    public Counter tracksPrefetched = Counter.build()
+            .name("cascade_tracks_prefetched_total")
+            .help("The number of tracks that were started from a prefetched buffer in this session")
+            .register();
+    public Summary trackGap = Summary.build()
+            .name("cascade_music_track_gap_milliseconds")
+            .help("The time between the end of a track and the start of the next one")
+            .labelNames("prefetched")
+            .register();
+    public Histogram trackLoadLatency = Histogram.build()
+            .name("cascade_music_track_load_latency_seconds")
+            .help("The time taken to load tracks from their source, by the source manager that loaded them")
+            .labelNames("source")
+            .buckets(0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10)
+            .register();
+    public Counter trackLoadFailures = Counter.build()
+            .name("cascade_music_track_load_failures_total")
+            .help("The number of track loads that failed in this session, by whether nothing matched or the severity of the error")
+            .labelNames("type")
+            .register();
+    public Counter lavalinkMigrations = Counter.build()
+            .name("cascade_lavalink_migrations_total")
+            .help("The number of players moved off of unhealthy lavalink nodes in this session")
+            .labelNames("from", "to")
+            .register();
+    public Counter playlistTracksLoaded = Counter.build()
+            .name("cascade_playlist_tracks_loaded_total")
+            .help("The number of saved playlist tracks that have been loaded in this session")
+            .labelNames("result")
+            .register();
+    public Summary trackLoadTime = Summary.build()
+            .name("cascade_playlist_track_load_time_seconds")
+            .help("The average time taken to load a single track of a saved playlist")
+            .register();
+    public Summary playlistLoadTime = Summary.build()
+            .name("cascade_playlist_load_time_seconds")
+            .help("The average time taken to load every track of a saved playlist")
+            .register();
+    public Counter youtubeSearches = Counter.build()
+            .name("cascade_youtube_searches_total")
+            .help("The number of YouTube searches in this session, by whether they were cached, shared an in-flight request or called the api")
+            .labelNames("source")
+            .register();
+    public Counter youtubeQuotaUsed = Counter.build()
+            .name("cascade_youtube_quota_used_total")
+            .help("The number of YouTube api quota units used by searches in this session")
+            .register();
+    public Summary youtubeSearchTime = Summary.build()
+            .name("cascade_youtube_search_time_seconds")
+            .help("The average time taken by the YouTube api to respond to a search")
+            .register();
 
 
+    public Counter guildSaveConflicts = Counter.build()
+            .name("cascade_guild_save_conflicts_total")
+            .help("The number of guild saves rejected because another writer changed the guild first")
+            .register();
+
     public Counter failedRestActions = Counter.build()
             .name("cascade_failed_rest_actions_total")
             .help("The number of uncaught failed rest actions in this session")
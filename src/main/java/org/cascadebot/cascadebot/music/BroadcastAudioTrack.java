@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.BaseAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioProcessingContext;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Plays a live stream from its {@link StreamBroadcast} rather than connecting to and decoding the stream itself. The
+ * broadcast frames are already opus encoded so they're passed straight to the player's frame buffer, which means the
+ * player's volume isn't applied to them.
+ */
+public class BroadcastAudioTrack extends BaseAudioTrack {
+
+    /**
+     * The stream this track plays. This is what gets encoded when the track is saved.
+     */
+    @Getter
+    private final AudioTrack source;
+
+    public BroadcastAudioTrack(AudioTrack source) {
+        super(source.getInfo());
+        this.source = source;
+        setUserData(source.getUserData());
+    }
+
+    /**
+     * Whether a track can be played from a broadcast. Only live streams are broadcast as everyone playing them hears the
+     * same thing at the same time, and only when they're played at the normal volume.
+     *
+     * @param track  The track to check.
+     * @param volume The volume of the player that's going to play the track.
+     * @return Whether the track can be broadcast.
+     */
+    public static boolean canBroadcast(AudioTrack track, int volume) {
+        return track.getInfo().isStream && volume == 100 && track.getSourceManager() != null;
+    }
+
+    @Override
+    public void process(LocalAudioTrackExecutor executor) throws Exception {
+        AudioProcessingContext context = executor.getProcessingContext();
+        StreamBroadcast broadcast = StreamBroadcast.subscribe(source);
+        try {
+            executor.executeProcessingLoop(() -> {
+                MutableAudioFrame frame = new MutableAudioFrame();
+                frame.setBuffer(ByteBuffer.allocate(broadcast.getFormat().maximumChunkSize()));
+                frame.setFormat(broadcast.getFormat());
+                frame.setVolume(100);
+
+                long cursor = broadcast.getLiveCursor();
+                long startTimecode = -1;
+                while ((cursor = broadcast.read(cursor, frame)) != -1) {
+                    // Timecodes start from when the broadcast started, so they're moved to start from when this track did
+                    if (startTimecode == -1) {
+                        startTimecode = frame.getTimecode();
+                    }
+                    frame.setTimecode(frame.getTimecode() - startTimecode);
+                    context.frameBuffer.consume(frame);
+                }
+            }, null);
+        } finally {
+            broadcast.unsubscribe();
+        }
+    }
+
+    @Override
+    public AudioTrack makeClone() {
+        return new BroadcastAudioTrack(source.makeClone());
+    }
+
+    @Override
+    public AudioSourceManager getSourceManager() {
+        return source.getSourceManager();
+    }
+
+}
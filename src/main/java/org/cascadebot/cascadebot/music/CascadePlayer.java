@@ -10,58 +10,427 @@ import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.TrackMarker;
+import com.sedmelluq.discord.lavaplayer.track.TrackMarkerHandler;
 import lavalink.client.io.jda.JdaLink;
 import lavalink.client.player.IPlayer;
 import lavalink.client.player.LavaplayerPlayerWrapper;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.VoiceChannel;
 import org.cascadebot.cascadebot.CascadeBot;
+import org.cascadebot.cascadebot.data.Config;
 import org.cascadebot.cascadebot.data.managers.PlaylistManager;
 import org.cascadebot.cascadebot.data.objects.Playlist;
 import org.cascadebot.cascadebot.data.objects.PlaylistType;
 import org.cascadebot.cascadebot.events.PlayerListener;
+import org.cascadebot.cascadebot.metrics.Metrics;
+import org.cascadebot.cascadebot.tasks.Task;
 import org.cascadebot.cascadebot.utils.StringsUtil;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 @Getter
 public class CascadePlayer {
 
-    private Queue<AudioTrack> queue = new LinkedList<>();
+    // Rough sizes used to estimate memory usage; a local player buffers ~5 seconds of opus frames
+    private static final long LOCAL_PLAYER_BYTES = 64 * 1024;
+    private static final long REMOTE_PLAYER_BYTES = 1024;
+    private static final long QUEUED_TRACK_BYTES = 1024;
+
+    private TrackQueue queue = new TrackQueue();
 
     private long guildId;
-    private IPlayer player;
+    // Swapped for the prefetch player when a prefetched track starts, so this should be fetched each time it's used
+    private volatile IPlayer player;
 
     private LoopMode loopMode = LoopMode.DISABLED;
     private boolean shuffleEnabled = false;
 
+    private volatile PlayerState state = PlayerState.IDLE;
+
+    // Whether the guild has music services, which decides whether this player is hibernated or destroyed when it's
+    // reclaimed. This is kept here so reclaiming players doesn't have to load guild data.
+    @Setter
+    private volatile boolean musicServices;
+
+    // Only set when this player isn't using lavalink
+    @Getter(AccessLevel.NONE)
+    private volatile AudioPlayer audioPlayer;
+    @Getter(AccessLevel.NONE)
+    private LavaPlayerAudioSendHandler sendHandler;
+
+    // Used to start the next track ahead of time so it has already buffered when the current track ends
+    @Getter(AccessLevel.NONE)
+    private final Object prefetchLock = new Object();
+    @Getter(AccessLevel.NONE)
+    private AudioPlayer prefetchPlayer;
+    @Getter(AccessLevel.NONE)
+    private AudioTrack prefetchedTrack;
+
+    // The track that was playing when this player was restored while it wasn't connected, started once it connects
+    @Getter(AccessLevel.NONE)
+    private AudioTrack pendingTrack;
+
+    // When the last track ended, used to measure the gap until the next one starts on lavalink
+    @Getter(AccessLevel.NONE)
+    private volatile long trackEndTime;
+
+    @Getter(AccessLevel.NONE)
+    private PlayerListener listener;
+
+    @Getter(AccessLevel.NONE)
+    private ScheduledFuture<?> idleTimeout;
+
     public CascadePlayer(Guild guild) {
         if (MusicHandler.isLavalinkEnabled()) {
             player = MusicHandler.getLavaLink().getLink(guild).getPlayer();
         } else {
-            AudioPlayer aPlayer = MusicHandler.createLavaLinkPlayer();
-            player = new LavaplayerPlayerWrapper(aPlayer);
-            guild.getAudioManager().setSendingHandler(new LavaPlayerAudioSendHandler(aPlayer));
+            audioPlayer = MusicHandler.createLavaLinkPlayer();
+            player = new LavaplayerPlayerWrapper(audioPlayer);
+            sendHandler = new LavaPlayerAudioSendHandler(audioPlayer);
+            guild.getAudioManager().setSendingHandler(sendHandler);
         }
-        player.addListener(new PlayerListener(this));
+        listener = new PlayerListener(this);
+        player.addListener(listener);
         guildId = guild.getIdLong();
     }
 
-    public double getQueueLength() {
-        double queueLength = player.getPlayingTrack().getDuration();
-        for (AudioTrack track : queue) {
-            queueLength += track.getDuration();
+    /**
+     * Marks this player as playing a track, cancelling any pending idle timeout.
+     */
+    public synchronized void markActive() {
+        if (state == PlayerState.DESTROYED) return;
+        state = PlayerState.ACTIVE;
+        cancelIdleTimeout();
+    }
+
+    /**
+     * Marks this player as not playing anything. If it stays idle for {@link MusicHandler#IDLE_TIMEOUT}
+     * it may be reclaimed.
+     */
+    public synchronized void markIdle() {
+        if (state == PlayerState.DESTROYED) return;
+        state = PlayerState.IDLE;
+        cancelIdleTimeout();
+        idleTimeout = Task.getScheduler().schedule(() -> CascadeBot.INS.getMusicHandler().onIdleTimeout(this),
+                MusicHandler.IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops this player and releases its resources. This should only be called by {@link MusicHandler} once the
+     * player has been removed, after which it can't be used again.
+     */
+    void destroy() {
+        synchronized (this) {
+            if (state == PlayerState.DESTROYED) return;
+            state = PlayerState.DESTROYED;
+            cancelIdleTimeout();
+        }
+        // The player is stopped outside of the lock as lavaplayer holds its own lock while sending events to the
+        // listener, which calls back into this player
+        queue.clear();
+        cancelPrefetch();
+        // Lavalink players are shared by the link so the listener has to be removed before the player is reused
+        player.removeListener(listener);
+        player.stopTrack();
+        if (audioPlayer != null) {
+            audioPlayer.destroy();
+            Guild guild = getGuild();
+            // A new player may already have been created for the guild, in which case its handler has to be kept
+            if (guild != null && guild.getAudioManager().getSendingHandler() == sendHandler) {
+                guild.getAudioManager().setSendingHandler(null);
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the queue and settings of this player, which can be restored onto a new player with
+     * {@link #restore(PlayerSnapshot)}.
+     *
+     * @return The snapshot of this player.
+     */
+    PlayerSnapshot snapshot() {
+        AudioTrack playing = player.getPlayingTrack();
+        long position = playing == null ? 0 : player.getTrackPosition();
+        synchronized (this) {
+            if (playing == null && pendingTrack != null) {
+                playing = pendingTrack;
+                position = pendingTrack.getPosition();
+            }
+        }
+        List<AudioTrack> tracks = new ArrayList<>(queue.size() + 1);
+        if (playing != null) {
+            tracks.add(playing);
+        }
+        tracks.addAll(queue);
+
+        long[] requesters = new long[tracks.size()];
+        for (int i = 0; i < requesters.length; i++) {
+            Object userData = tracks.get(i).getUserData();
+            requesters[i] = userData instanceof Long ? (Long) userData : 0;
+        }
+
+        return new PlayerSnapshot(guildId, TrackSerializer.compress(tracks), requesters, playing != null,
+                position, player.isPaused(), player.getVolume(), loopMode, shuffleEnabled);
+    }
+
+    /**
+     * Restores a snapshot taken with {@link #snapshot()} onto this player. If a track was playing it's started again
+     * from where it was when the snapshot was taken, or once the player connects if it isn't connected yet.
+     *
+     * @param snapshot The snapshot to restore.
+     */
+    void restore(PlayerSnapshot snapshot) {
+        loopMode = snapshot.getLoopMode();
+        shuffleEnabled = snapshot.isShuffleEnabled();
+        player.setVolume(snapshot.getVolume());
+
+        List<AudioTrack> tracks = TrackSerializer.decompress(snapshot.getTracks());
+        if (tracks == null) return;
+        AudioTrack playing = null;
+        boolean resumePosition = false;
+        for (int i = 0; i < tracks.size(); i++) {
+            AudioTrack track = tracks.get(i);
+            // Tracks from sources that have since been removed can't be decoded, so they're dropped
+            if (track == null) continue;
+            if (snapshot.getRequesters()[i] != 0) {
+                track.setUserData(snapshot.getRequesters()[i]);
+            }
+            // If the playing track can't be decoded the next track that can be is played instead, from the start
+            if (playing == null && snapshot.isPlaying()) {
+                playing = track;
+                resumePosition = i == 0;
+            } else {
+                queue.add(track);
+            }
         }
-        return queueLength;
+
+        if (playing != null) {
+            if (resumePosition && !playing.getInfo().isStream) {
+                playing.setPosition(snapshot.getPosition());
+            }
+            player.setPaused(snapshot.isPaused());
+            if (getConnectedChannel() != null) {
+                playTrack(playing);
+            } else {
+                synchronized (this) {
+                    pendingTrack = playing;
+                }
+            }
+        }
+    }
+
+    /**
+     * Called when the bot joins a voice channel in this player's guild. If a track was restored while the player
+     * wasn't connected it's started now, or put at the front of the queue if something else has started since.
+     */
+    public void onConnected() {
+        AudioTrack track;
+        synchronized (this) {
+            track = pendingTrack;
+            pendingTrack = null;
+        }
+        if (track == null) return;
+        if (player.getPlayingTrack() == null) {
+            playTrack(track);
+        } else {
+            queue.add(track);
+            queue.move(queue.size() - 1, 0);
+        }
+    }
+
+    private void cancelIdleTimeout() {
+        if (idleTimeout != null) {
+            idleTimeout.cancel(false);
+            idleTimeout = null;
+        }
+    }
+
+    /**
+     * Called when a track starts playing. For local players this sets a marker to prefetch the next track
+     * {@link Config#getMusicPrefetchDuration()} before the end of this one.
+     *
+     * @param track The track that started.
+     */
+    public void onTrackStart(AudioTrack track) {
+        markActive();
+
+        long endTime = trackEndTime;
+        if (endTime != 0) {
+            trackEndTime = 0;
+            Metrics.INS.trackGap.labels("false").observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - endTime));
+        }
+
+        long prefetchDuration = Config.INS.getMusicPrefetchDuration();
+        if (audioPlayer == null || prefetchDuration <= 0 || track.getInfo().isStream) return;
+        track.setMarker(new TrackMarker(Math.max(0, track.getDuration() - prefetchDuration), markerState -> {
+            // Late and bypassed markers happen when seeking past the marker, which still means the track is nearly done
+            if (markerState == TrackMarkerHandler.MarkerState.REACHED || markerState == TrackMarkerHandler.MarkerState.LATE ||
+                    markerState == TrackMarkerHandler.MarkerState.BYPASSED) {
+                prefetch(track);
+            }
+        }));
+    }
+
+    /**
+     * Starts the track that is expected to play after the current one on a paused player, so it has already connected
+     * to its source and buffered audio by the time it's needed.
+     *
+     * @param current The track that is about to end.
+     */
+    private void prefetch(AudioTrack current) {
+        AudioTrack next;
+        switch (loopMode) {
+            case SONG:
+                next = current;
+                break;
+            case PLAYLIST:
+                // The current track is added back to the queue once it ends so it's next if the queue is empty
+                next = queue.isEmpty() ? current : queue.peek();
+                break;
+            default:
+                next = queue.peek();
+                break;
+        }
+        // Streams are live so starting them early would only put them behind
+        if (next == null || next.getInfo().isStream) return;
+
+        synchronized (prefetchLock) {
+            if (state == PlayerState.DESTROYED) return;
+            if (prefetchPlayer == null) {
+                prefetchPlayer = MusicHandler.createLavaLinkPlayer();
+            }
+            prefetchPlayer.setPaused(true);
+            prefetchedTrack = next.makeClone();
+            prefetchPlayer.playTrack(prefetchedTrack);
+        }
+    }
+
+    private void cancelPrefetch() {
+        synchronized (prefetchLock) {
+            // The prefetch player is only kept while it has a track so idle players don't hold a second frame buffer
+            if (prefetchPlayer != null) {
+                prefetchPlayer.destroy();
+                prefetchPlayer = null;
+            }
+            prefetchedTrack = null;
+        }
+    }
+
+    /**
+     * Plays the next track once the current one has ended. If the track has been prefetched the prefetch player takes
+     * over, otherwise the track is started on the current player.
+     *
+     * @param track The track to play.
+     */
+    public void playNext(AudioTrack track) {
+        synchronized (prefetchLock) {
+            // The next track is matched by identifier as the queue may have changed since it was prefetched, and loop
+            // modes queue clones of the track instead of the same instance
+            if (prefetchedTrack != null && prefetchPlayer.getPlayingTrack() == prefetchedTrack &&
+                    prefetchedTrack.getIdentifier().equals(track.getIdentifier())) {
+                prefetchedTrack.setUserData(track.getUserData());
+                swapToPrefetchPlayer();
+                return;
+            }
+        }
+        cancelPrefetch();
+        if (sendHandler != null) {
+            sendHandler.startGap("false");
+        } else {
+            trackEndTime = System.nanoTime();
+        }
+        playTrack(track);
+    }
+
+    /**
+     * Plays a track on the current player. Live streams are played from their {@link StreamBroadcast} when they can
+     * be, so guilds playing the same stream share a single connection to it.
+     *
+     * @param track The track to play.
+     */
+    private void playTrack(AudioTrack track) {
+        if (track instanceof BroadcastAudioTrack) {
+            track = ((BroadcastAudioTrack) track).getSource();
+        }
+        if (audioPlayer != null && Config.INS.isMusicBroadcastStreams() && BroadcastAudioTrack.canBroadcast(track, player.getVolume())) {
+            track = new BroadcastAudioTrack(track);
+        }
+        player.playTrack(track);
+    }
+
+    /**
+     * Sets the volume of this player. Broadcast streams don't have the volume applied to them, so if one is playing
+     * it's switched to playing the stream directly.
+     *
+     * @param volume The volume to set, where 100 is the normal volume.
+     */
+    public void setVolume(int volume) {
+        player.setVolume(volume);
+        AudioTrack playing = player.getPlayingTrack();
+        if (playing instanceof BroadcastAudioTrack && volume != 100) {
+            AudioTrack source = ((BroadcastAudioTrack) playing).getSource().makeClone();
+            source.setUserData(playing.getUserData());
+            player.playTrack(source);
+        }
+    }
+
+    private void swapToPrefetchPlayer() {
+        AudioPlayer previous = audioPlayer;
+        AudioPlayer next = prefetchPlayer;
+        AudioTrack track = prefetchedTrack;
+
+        previous.removeListener(listener);
+        next.setVolume(previous.getVolume());
+        next.addListener(listener);
+        audioPlayer = next;
+        player = new LavaplayerPlayerWrapper(next);
+        sendHandler.setFrameProvider(next);
+        sendHandler.startGap("true");
+        next.setPaused(previous.isPaused());
+
+        // The previous player has finished its track, the next prefetch creates a new player if it's needed
+        previous.destroy();
+        prefetchPlayer = null;
+        prefetchedTrack = null;
+
+        // The start event was sent before the listener was added
+        Metrics.INS.tracksPrefetched.inc();
+        onTrackStart(track);
+    }
+
+    /**
+     * Estimates the heap used by this player. Local players hold their own frame buffer, plus another one while the
+     * next track is being prefetched, while lavalink players only hold the queue, which is counted at a flat rate per
+     * track.
+     *
+     * @return The estimated memory usage in bytes.
+     */
+    public long estimateMemoryUsage() {
+        long playerBytes;
+        if (audioPlayer == null) {
+            playerBytes = REMOTE_PLAYER_BYTES;
+        } else {
+            synchronized (prefetchLock) {
+                playerBytes = prefetchPlayer != null ? 2 * LOCAL_PLAYER_BYTES : LOCAL_PLAYER_BYTES;
+            }
+        }
+        return playerBytes + (long) queue.size() * QUEUED_TRACK_BYTES;
+    }
+
+    public double getQueueLength() {
+        return player.getPlayingTrack().getDuration() + queue.getDuration();
     }
 
     /**
@@ -93,7 +462,7 @@ public class CascadePlayer {
         if (player.getPlayingTrack() != null) {
             queue.add(track);
         } else {
-            player.playTrack(track);
+            playTrack(track);
         }
     }
 
@@ -111,10 +480,7 @@ public class CascadePlayer {
     }
 
     public void shuffle() {
-        List<AudioTrack> tracks = new ArrayList<>(getQueue());
-        Collections.shuffle(tracks);
-        this.queue = new LinkedList<>();
-        this.queue.addAll(tracks);
+        queue.shuffle();
     }
 
     public void skip() {
@@ -160,19 +526,34 @@ public class CascadePlayer {
     public void stop() {
         queue.clear();
         loopMode = LoopMode.DISABLED;
+        cancelPrefetch();
         player.stopTrack();
     }
 
     public void loadLink(String input, long requestUser, Consumer<String> noMatchConsumer, Consumer<FriendlyException> exceptionConsumer, Consumer<List<AudioTrack>> resultTracks) {
+        List<AudioTrack> cachedTracks = TrackCache.get(input);
+        if (cachedTracks != null) {
+            for (AudioTrack track : cachedTracks) {
+                track.setUserData(requestUser);
+            }
+            resultTracks.accept(Collections.unmodifiableList(cachedTracks));
+            return;
+        }
+
+        long loadStart = System.nanoTime();
         MusicHandler.getPlayerManager().loadItem(input, new AudioLoadResultHandler() {
             @Override
             public void trackLoaded(AudioTrack audioTrack) {
+                observeLoad(audioTrack);
+                TrackCache.putTrack(input, audioTrack);
                 audioTrack.setUserData(requestUser);
                 resultTracks.accept(Collections.singletonList(audioTrack));
             }
 
             @Override
             public void playlistLoaded(AudioPlaylist audioPlaylist) {
+                observeLoad(audioPlaylist.getTracks().isEmpty() ? null : audioPlaylist.getTracks().get(0));
+                TrackCache.putPlaylist(input, audioPlaylist.getTracks());
                 List<AudioTrack> tracks = new ArrayList<>();
                 for (AudioTrack track : audioPlaylist.getTracks()) {
                     track.setUserData(requestUser);
@@ -183,35 +564,49 @@ public class CascadePlayer {
 
             @Override
             public void noMatches() {
+                observeLoad(null);
+                Metrics.INS.trackLoadFailures.labels("no_matches").inc();
                 noMatchConsumer.accept(input);
             }
 
             @Override
             public void loadFailed(FriendlyException e) {
+                observeLoad(null);
+                Metrics.INS.trackLoadFailures.labels(e.severity.name().toLowerCase()).inc();
                 exceptionConsumer.accept(e);
             }
+
+            private void observeLoad(AudioTrack track) {
+                // The source is only known once something has loaded
+                String source = track == null || track.getSourceManager() == null ? "unknown" : track.getSourceManager().getSourceName();
+                Metrics.INS.trackLoadLatency.labels(source).observe((System.nanoTime() - loadStart) / 1e9);
+            }
         });
     }
 
-    public void loadPlaylist(String name, Member sender, BiConsumer<LoadPlaylistResult, List<AudioTrack>> consumer) {
+    /**
+     * Loads a saved playlist into this player, looking for it in both the user and guild scopes. Tracks are added
+     * to the player in order as they load, and the consumer is called once the whole playlist has been loaded.
+     */
+    public void loadPlaylist(String name, Member sender, BiConsumer<LoadPlaylistResult, PlaylistLoader> consumer) {
         Playlist guild = PlaylistManager.getPlaylistByName(sender.getGuild().getIdLong(), PlaylistType.GUILD, name);
         Playlist user = PlaylistManager.getPlaylistByName(sender.getUser().getIdLong(), PlaylistType.USER, name);
         if (guild != null && user != null) {
             consumer.accept(LoadPlaylistResult.EXISTS_IN_ALL_SCOPES, null);
         } else if (guild != null) {
-            loadLoadedPlaylist(guild, sender.getUser().getIdLong(), tracks -> {
-                consumer.accept(LoadPlaylistResult.LOADED_GUILD, tracks);
+            loadLoadedPlaylist(guild, sender.getUser().getIdLong(), loader -> {
+                consumer.accept(LoadPlaylistResult.LOADED_GUILD, loader);
             });
         } else if (user != null) {
-            loadLoadedPlaylist(user, sender.getUser().getIdLong(), tracks -> {
-                consumer.accept(LoadPlaylistResult.LOADED_USER, tracks);
+            loadLoadedPlaylist(user, sender.getUser().getIdLong(), loader -> {
+                consumer.accept(LoadPlaylistResult.LOADED_USER, loader);
             });
         } else {
             consumer.accept(LoadPlaylistResult.DOESNT_EXIST, null);
         }
     }
 
-    public void loadPlaylist(String name, Member sender, PlaylistType scope, BiConsumer<LoadPlaylistResult, List<AudioTrack>> consumer) {
+    public void loadPlaylist(String name, Member sender, PlaylistType scope, BiConsumer<LoadPlaylistResult, PlaylistLoader> consumer) {
         LoadPlaylistResult result = LoadPlaylistResult.DOESNT_EXIST;
         long owner = 0;
         switch (scope) {
@@ -231,30 +626,29 @@ public class CascadePlayer {
         }
 
         LoadPlaylistResult loadPlaylistResult = result;
-        loadLoadedPlaylist(playlist, sender.getUser().getIdLong(), tracks -> {
-            consumer.accept(loadPlaylistResult, tracks);
+        loadLoadedPlaylist(playlist, sender.getUser().getIdLong(), loader -> {
+            consumer.accept(loadPlaylistResult, loader);
         });
     }
 
-    private void loadLoadedPlaylist(Playlist playlist, long reqUser, Consumer<List<AudioTrack>> loadedConsumer) {
-        List<AudioTrack> tracks = new ArrayList<>();
-        for (String url : playlist.getTracks()) {
-            loadLink(url, reqUser, noMatch -> {
-                playlist.removeTrack(url);
-            }, exception -> {
-                playlist.removeTrack(url);
-            }, loadedTracks -> {
-                tracks.addAll(loadedTracks);
-                if (tracks.size() == playlist.getTracks().size()) {
-                    loadedConsumer.accept(tracks);
-                }
-            });
-        }
+    private void loadLoadedPlaylist(Playlist playlist, long reqUser, Consumer<PlaylistLoader> loadedConsumer) {
+        byte[] encodedTracks = playlist.getEncodedTracks() == null ? null : playlist.getEncodedTracks().getData();
+        new PlaylistLoader(this, playlist.getTracks(), encodedTracks, reqUser, this::addTracks, loader -> {
+            if (loader.isReencodeNeeded()) {
+                // Stores the tracks that had to be resolved remotely so the next load can decode them
+                playlist.setEncodedTracks(TrackSerializer.compress(loader.getResolvedTracks()));
+                PlaylistManager.replacePlaylist(playlist);
+            }
+            loadedConsumer.accept(loader);
+        }).start();
     }
 
     public SavePlaylistResult saveCurrentPlaylist(long owner, PlaylistType scope, String name, boolean overwrite) {
         List<AudioTrack> tracks = new ArrayList<>();
-        tracks.add(player.getPlayingTrack());
+        AudioTrack playing = player.getPlayingTrack();
+        if (playing != null) {
+            tracks.add(playing);
+        }
         tracks.addAll(this.queue);
 
         List<String> ids = new ArrayList<>();
@@ -262,21 +656,42 @@ public class CascadePlayer {
             ids.add(track.getIdentifier());
         }
 
+        byte[] encodedTracks = TrackSerializer.compress(tracks);
+
         Playlist search = PlaylistManager.getPlaylistByName(owner, scope, name);
         if (search != null) {
             if (overwrite) {
                 search.setTracks(ids);
+                search.setEncodedTracks(encodedTracks);
                 PlaylistManager.replacePlaylist(search);
                 return SavePlaylistResult.OVERWRITE;
             } else {
                 return SavePlaylistResult.ALREADY_EXISTS;
             }
         } else {
-            PlaylistManager.savePlaylist(new Playlist(owner, name, scope, ids));
+            PlaylistManager.savePlaylist(new Playlist(owner, name, scope, ids, encodedTracks));
             return SavePlaylistResult.NEW;
         }
     }
 
+    public enum PlayerState {
+
+        /**
+         * The player is playing a track.
+         */
+        ACTIVE,
+        /**
+         * The player isn't playing anything and will be reclaimed once it times out while disconnected, or hibernated
+         * if the guild has music services.
+         */
+        IDLE,
+        /**
+         * The player has been reclaimed and must not be used.
+         */
+        DESTROYED
+
+    }
+
     public enum LoopMode {
 
         DISABLED,
@@ -1,46 +1,123 @@
 package org.cascadebot.cascadebot.music;
 
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
-import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameProvider;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
 import net.dv8tion.jda.core.audio.AudioSendHandler;
+import org.cascadebot.cascadebot.metrics.Metrics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
- * Taken from https://git.io/fjkTK
+ * Based on https://git.io/fjkTK
+ * <p>
+ * Frames are copied into a buffer owned by this handler rather than lavaplayer allocating a new frame for each one.
+ * JDA still needs an array with the exact length of each frame, so that is the only allocation left per frame.
  */
 public class LavaPlayerAudioSendHandler implements AudioSendHandler {
 
-    private final AudioPlayer audioPlayer;
-    private AudioFrame lastFrame;
+    // Counted here rather than with a prometheus counter as they're incremented for every frame of every player
+    private static final LongAdder framesProvided = new LongAdder();
+    private static final LongAdder framesMissed = new LongAdder();
+
+    private volatile AudioFrameProvider frameProvider;
+    private final byte[] buffer = new byte[StandardAudioDataFormats.DISCORD_OPUS.maximumChunkSize()];
+    private final MutableAudioFrame frame = new MutableAudioFrame();
+    private boolean hasFrame;
+
+    private volatile long gapStart;
+    private volatile String gapPrefetched;
 
     public LavaPlayerAudioSendHandler(AudioPlayer audioPlayer) {
-        this.audioPlayer = audioPlayer;
+        this((AudioFrameProvider) audioPlayer);
+    }
+
+    LavaPlayerAudioSendHandler(AudioFrameProvider frameProvider) {
+        this.frameProvider = frameProvider;
+        frame.setBuffer(ByteBuffer.wrap(buffer));
+    }
+
+    /**
+     * Switches the player frames are taken from, e.g. when a prefetched track takes over.
+     */
+    void setFrameProvider(AudioFrameProvider frameProvider) {
+        this.frameProvider = frameProvider;
+    }
+
+    /**
+     * Starts timing the gap between the end of a track and the first frame of the next one.
+     *
+     * @param prefetched Whether the next track was prefetched, used as the label of the metric.
+     */
+    void startGap(String prefetched) {
+        gapPrefetched = prefetched;
+        gapStart = System.nanoTime();
     }
 
     @Override
     public boolean canProvide() {
-        if (lastFrame == null) {
-            lastFrame = audioPlayer.provide();
+        if (!hasFrame) {
+            provideFrame();
         }
 
-        return lastFrame != null;
+        return hasFrame;
     }
 
     @Override
     public byte[] provide20MsAudio() {
-        if (lastFrame == null) {
-            lastFrame = audioPlayer.provide();
+        if (!hasFrame) {
+            provideFrame();
         }
 
-        byte[] data = lastFrame != null ? lastFrame.getData() : null;
-        lastFrame = null;
+        byte[] data = hasFrame ? Arrays.copyOf(buffer, frame.getDataLength()) : null;
+        hasFrame = false;
 
         return data;
     }
 
+    private void provideFrame() {
+        AudioFrameProvider provider = frameProvider;
+        hasFrame = provider.provide(frame);
+        if (hasFrame) {
+            framesProvided.increment();
+        } else if (isPlaying(provider)) {
+            // Discord asked for a frame while a track was playing but none had been decoded in time
+            framesMissed.increment();
+        }
+        if (hasFrame && gapStart != 0) {
+            Metrics.INS.trackGap.labels(gapPrefetched).observe(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - gapStart));
+            gapStart = 0;
+        }
+    }
+
+    /**
+     * @return The number of frames sent by every handler.
+     */
+    public static long getFramesProvided() {
+        return framesProvided.sum();
+    }
+
+    /**
+     * @return The number of times a handler had no frame to send while its track was playing.
+     */
+    public static long getFramesMissed() {
+        return framesMissed.sum();
+    }
+
+    private static boolean isPlaying(AudioFrameProvider provider) {
+        if (!(provider instanceof AudioPlayer)) return false;
+        AudioPlayer player = (AudioPlayer) provider;
+        return player.getPlayingTrack() != null && !player.isPaused();
+    }
+
     @Override
     public boolean isOpus() {
         return true;
     }
 
-}
\ No newline at end of file
+}
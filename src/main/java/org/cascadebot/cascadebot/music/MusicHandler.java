@@ -5,10 +5,9 @@
 
 package org.cascadebot.cascadebot.music;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.gson.stream.JsonReader;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
@@ -17,6 +16,8 @@ import com.sedmelluq.discord.lavaplayer.source.beam.BeamAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.soundcloud.SoundCloudAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.twitch.TwitchStreamAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.playback.NonAllocatingAudioFrameBuffer;
+import io.prometheus.client.Summary;
 import lavalink.client.io.jda.JdaLavalink;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -26,6 +27,7 @@ import okhttp3.Call;
 import okhttp3.Callback;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
@@ -34,17 +36,26 @@ import org.cascadebot.cascadebot.data.Config;
 import org.cascadebot.cascadebot.data.managers.GuildDataManager;
 import org.cascadebot.cascadebot.data.objects.Flag;
 import org.cascadebot.cascadebot.messaging.Messaging;
+import org.cascadebot.cascadebot.metrics.Metrics;
+import org.cascadebot.cascadebot.tasks.Task;
 import org.cascadebot.cascadebot.utils.PasteUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -54,22 +65,43 @@ public class MusicHandler {
     @Getter
     private static AudioPlayerManager playerManager = new DefaultAudioPlayerManager();
 
-    private Pattern typePattern = Pattern.compile("youtube#([A-z]+)");
+    private static final Pattern TYPE_PATTERN = Pattern.compile("youtube#([A-z]+)");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    private static final int MAX_SEARCH_RESULTS = 5;
+    // The number of quota units a search.list request costs
+    private static final int SEARCH_QUOTA_COST = 100;
+
+    // Failed searches are removed by the cache, so only successful results are kept
+    private static final AsyncLoadingCache<String, List<SearchResult>> searchCache = Caffeine.newBuilder()
+            .maximumSize(5000)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .recordStats()
+            .buildAsync((query, executor) -> requestSearch(query));
 
     private CascadeBot instance;
 
-    private static Map<Long, CascadePlayer> players = new HashMap<>();
+    // Players are only reclaimed once they have been idle for this long and are not connected to a channel. Players of
+    // guilds with music services are hibernated after this long even if they are still connected.
+    static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(15);
+
+    private static Map<Long, CascadePlayer> players = new ConcurrentHashMap<>();
+    // Snapshots of the players of guilds with music services, which are hibernated instead of being reclaimed
+    private static Map<Long, PlayerSnapshot> hibernatedPlayers = new ConcurrentHashMap<>();
 
     public MusicHandler(CascadeBot instance) {
         this.instance = instance;
     }
 
-    JsonParser musicJsonParser = new JsonParser();
-
     private static JdaLavalink lavalink;
+    @Getter
+    private static NodeBalancer nodeBalancer;
     private static boolean lavalinkEnabled;
 
     public void buildMusic() {
+        // Frames are copied out of a fixed buffer per player instead of being allocated as they're decoded
+        playerManager.getConfiguration().setFrameBufferFactory(NonAllocatingAudioFrameBuffer::new);
+        playerManager.setFrameBufferDuration(Config.INS.getMusicFrameBufferDuration());
         AudioSourceManagers.registerRemoteSources(playerManager);
 
         YoutubeAudioSourceManager youtubeAudioSourceManager = new YoutubeAudioSourceManager(false);
@@ -87,8 +119,16 @@ public class MusicHandler {
                     Config.INS.getShardNum(),
                     shardId -> instance.getShardManager().getShardById(shardId));
             for (MusicNode musicNode : Config.INS.getMusicNodes()) {
-                lavalink.addNode(musicNode.uri, musicNode.password); //TODO give nodes a name
+                lavalink.addNode(musicNode.name, musicNode.uri, musicNode.password);
             }
+            nodeBalancer = new NodeBalancer(lavalink);
+            lavalink.getLoadBalancer().addPenalty(nodeBalancer);
+            new Task("check-music-nodes") {
+                @Override
+                protected void execute() {
+                    nodeBalancer.check();
+                }
+            }.start(TimeUnit.SECONDS.toMillis(30), TimeUnit.SECONDS.toMillis(30));
             lavalinkEnabled = true;
         } else {
             lavalinkEnabled = false;
@@ -96,99 +136,306 @@ public class MusicHandler {
 
     }
 
+    /**
+     * Gets the player for a guild, creating it if it doesn't exist. If the guild's player has been hibernated it's
+     * restored from its snapshot.
+     *
+     * @param guildId The ID of the guild to get the player for.
+     * @return The player, or {@code null} if the guild can't be found.
+     */
     public CascadePlayer getPlayer(long guildId) {
-        return players.computeIfAbsent(guildId, id -> {
+        boolean[] created = new boolean[1];
+        CascadePlayer player = players.computeIfAbsent(guildId, id -> {
             Guild guild = CascadeBot.INS.getShardManager().getGuildById(id);
             if (guild != null) {
-                return new CascadePlayer(guild);
+                created[0] = true;
+                CascadePlayer newPlayer = new CascadePlayer(guild);
+                // New players haven't played anything yet so they start off idle
+                newPlayer.markIdle();
+                return newPlayer;
             } else {
                 return null;
             }
         });
+        // Only the caller that created the player sets it up, and outside of the map's lock as loading the guild data
+        // and decoding the queue can take a while. Players are created by commands and voice events, which have
+        // already loaded the guild data anyway.
+        if (created[0]) {
+            player.setMusicServices(GuildDataManager.getGuildData(guildId).isFlagEnabled(Flag.MUSIC_SERVICES));
+            PlayerSnapshot snapshot = hibernatedPlayers.remove(guildId);
+            if (snapshot != null) {
+                player.restore(snapshot);
+                Metrics.INS.playersRehydrated.inc();
+            }
+        }
+        return player;
     }
 
     public boolean removePlayer(long guildId) {
-        return players.remove(guildId) != null;
+        hibernatedPlayers.remove(guildId);
+        CascadePlayer player = players.remove(guildId);
+        if (player == null) return false;
+        player.destroy();
+        return true;
+    }
+
+    public Collection<CascadePlayer> getPlayers() {
+        return Collections.unmodifiableCollection(players.values());
+    }
+
+    public Collection<PlayerSnapshot> getHibernatedPlayers() {
+        return Collections.unmodifiableCollection(hibernatedPlayers.values());
+    }
+
+    /**
+     * Adds a snapshot as a hibernated player, e.g. one saved before the bot restarted. The snapshot is ignored if the
+     * guild already has a player or a hibernated player.
+     *
+     * @param snapshot The snapshot to add.
+     * @return Whether the snapshot was added.
+     */
+    boolean addHibernatedPlayer(PlayerSnapshot snapshot) {
+        if (players.containsKey(snapshot.getGuildId())) return false;
+        return hibernatedPlayers.putIfAbsent(snapshot.getGuildId(), snapshot) == null;
+    }
+
+    /**
+     * Removes a hibernated player without restoring it, as long as it hasn't been replaced since.
+     *
+     * @param snapshot The snapshot of the hibernated player.
+     */
+    void discardHibernatedPlayer(PlayerSnapshot snapshot) {
+        hibernatedPlayers.remove(snapshot.getGuildId(), snapshot);
+    }
+
+    /**
+     * Updates the player of a guild after its music services flag has been changed, if it has a player.
+     *
+     * @param guildId       The ID of the guild.
+     * @param musicServices Whether the guild now has music services.
+     */
+    public void onMusicServicesChanged(long guildId, boolean musicServices) {
+        CascadePlayer player = players.get(guildId);
+        if (player != null) {
+            player.setMusicServices(musicServices);
+        }
+    }
+
+    /**
+     * Called once a player has been idle for {@link #IDLE_TIMEOUT}. Players that are still connected are kept
+     * and are reclaimed when they disconnect instead, unless the guild has music services in which case the player
+     * is hibernated while the bot stays in the channel.
+     */
+    void onIdleTimeout(CascadePlayer player) {
+        if (player.getState() != CascadePlayer.PlayerState.IDLE) return;
+        if (player.getConnectedChannel() != null && !player.isMusicServices()) return;
+        reclaim(player);
+    }
+
+    /**
+     * Called when the bot leaves a voice channel in a guild.
+     *
+     * @param guildId The ID of the guild the bot was disconnected in.
+     */
+    public void onDisconnect(long guildId) {
+        CascadePlayer player = players.get(guildId);
+        if (player != null) {
+            reclaim(player);
+        }
     }
 
-    public void purgeDisconnectedPlayers() {
-        // Removes all players that are not connected to a channel unless they have supported us on Patreon
-        players.entrySet().removeIf(entry -> entry.getValue().getConnectedChannel() == null && !GuildDataManager.getGuildData(entry.getKey()).isFlagEnabled(Flag.MUSIC_SERVICES));
+    private void reclaim(CascadePlayer player) {
+        if (player.isMusicServices()) {
+            hibernate(player);
+        } else if (players.remove(player.getGuildId(), player)) {
+            player.destroy();
+            Metrics.INS.playersReclaimed.inc();
+        }
     }
 
     /**
-     * Searches for a list of 5 tracks and if it errors send the error to the specified channel
+     * Replaces a player with a snapshot of its queue and settings, releasing the player itself. The player is
+     * restored from the snapshot the next time it's fetched with {@link #getPlayer(long)}.
+     *
+     * @param player The player to hibernate.
+     */
+    private void hibernate(CascadePlayer player) {
+        long guildId = player.getGuildId();
+        // The snapshot is taken before touching the map as compressing the queue can take a while. It's stored before
+        // the player is removed so the player can't be fetched in between without the snapshot being restored.
+        PlayerSnapshot snapshot = player.snapshot();
+        hibernatedPlayers.put(guildId, snapshot);
+        if (!players.remove(guildId, player)) {
+            hibernatedPlayers.remove(guildId, snapshot);
+            return;
+        }
+
+        long playerMemory = player.estimateMemoryUsage();
+        player.destroy();
+        Metrics.INS.playersHibernated.inc();
+        Metrics.INS.hibernationMemoryReclaimed.inc(Math.max(0, playerMemory - snapshot.estimateMemoryUsage()));
+    }
+
+    /**
+     * Searches for a list of 5 tracks and if it errors send the error to the specified channel. Results are cached
+     * by the normalised query, and searches for a query which is already being searched for share the same request.
      *
      * @param search  The string to search
      * @param channel The {@link TextChannel} to send any errors to
-     * @return The list of tracks that where found
      */
     public void searchTracks(String search, TextChannel channel, Consumer<List<SearchResult>> searchResultConsumer) {
         if (StringUtils.isBlank(Config.INS.getYoutubeKey())) {
             // TODO: Some way to disable searching?
             return;
         }
-        Request request = new Request.Builder().url("https://www.googleapis.com/youtube/v3/search?part=snippet&q=" + URLEncoder.encode(search, StandardCharsets.UTF_8) + "&key=" + URLEncoder.encode(Config.INS.getYoutubeKey(), StandardCharsets.UTF_8) + "&maxResults=5&type=video,playlist").build();
+
+        boolean[] requested = new boolean[1];
+        CompletableFuture<List<SearchResult>> future = searchCache.get(normaliseQuery(search), (query, executor) -> {
+            requested[0] = true;
+            return requestSearch(query);
+        });
+        Metrics.INS.youtubeSearches.labels(requested[0] ? "api" : future.isDone() ? "cache" : "coalesced").inc();
+
+        future.whenComplete((searchResults, throwable) -> {
+            if (throwable == null) {
+                searchResultConsumer.accept(searchResults);
+                return;
+            }
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (cause instanceof SearchFailedException) {
+                Messaging.sendDangerMessage(channel, String.format("The query was unsuccessful! Response: %s",
+                        PasteUtils.paste(((SearchFailedException) cause).getResponse())));
+            } else if (cause instanceof IOException) {
+                Messaging.sendExceptionMessage(channel, "Error searching from YouTube!", cause);
+            } else {
+                Messaging.sendExceptionMessage(channel, "Error while processing search!", cause);
+            }
+        });
+    }
+
+    private static String normaliseQuery(String search) {
+        return WHITESPACE_PATTERN.matcher(search.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    private static CompletableFuture<List<SearchResult>> requestSearch(String query) {
+        Metrics.INS.youtubeQuotaUsed.inc(SEARCH_QUOTA_COST);
+        Summary.Timer timer = Metrics.INS.youtubeSearchTime.startTimer();
+
+        CompletableFuture<List<SearchResult>> future = new CompletableFuture<>();
+        Request request = new Request.Builder().url("https://www.googleapis.com/youtube/v3/search?part=snippet&q=" + URLEncoder.encode(query, StandardCharsets.UTF_8) + "&key=" + URLEncoder.encode(Config.INS.getYoutubeKey(), StandardCharsets.UTF_8) + "&maxResults=" + MAX_SEARCH_RESULTS + "&type=video,playlist").build();
         CascadeBot.INS.getHttpClient().newCall(request).enqueue(new Callback() {
             @Override
             public void onFailure(@NotNull Call call, @NotNull IOException e) {
-                Messaging.sendExceptionMessage(channel, "Error searching from YouTube!", e);
+                timer.observeDuration();
+                future.completeExceptionally(e);
             }
 
             @Override
             public void onResponse(@NotNull Call call, @NotNull Response response) {
-                if (response.body() == null) {
-                    Messaging.sendDangerMessage(channel, "YouTube didn't return any data!");
-                    return;
+                try (ResponseBody body = response.body()) {
+                    timer.observeDuration();
+                    if (body == null) {
+                        future.completeExceptionally(new IOException("YouTube didn't return any data!"));
+                    } else if (!response.isSuccessful()) {
+                        future.completeExceptionally(new SearchFailedException(body.string()));
+                    } else {
+                        future.complete(parseSearchResults(body.charStream()));
+                    }
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
                 }
+            }
+        });
+        return future;
+    }
 
-                try {
-                    if (!response.isSuccessful()) {
-                        Messaging.sendDangerMessage(channel, String.format("The query was unsuccessful! Response: %s", PasteUtils.paste(response.body().string())));
-                        return;
-                    }
-                    List<SearchResult> searchResults = new ArrayList<>();
-                    JsonObject json = musicJsonParser.parse(response.body().string()).getAsJsonObject();
-                    JsonArray items = json.getAsJsonArray("items");
-                    int i = 0;
-                    for (JsonElement elm : items) {
-                        i++;
-                        if (i > 5) {
-                            CascadeBot.LOGGER.warn("YouTube returned more then 5 results! A check of the YouTube api is recommended");
-                            break;
-                        }
-                        JsonObject item = elm.getAsJsonObject();
-                        JsonObject idElm = item.getAsJsonObject("id");
-                        String type = idElm.get("kind").getAsString();
-                        Matcher matcher = typePattern.matcher(type);
-                        if (!matcher.matches()) {
-                            break;
-                        }
-                        type = matcher.group(1);
-                        String url = "";
-                        SearchResultType searchResultType = null;
-                        switch (type) {
-                            case "playlist":
-                                searchResultType = SearchResultType.PLAYLIST;
-                                url = "https://www.youtube.com/playlist?list=" + URLEncoder.encode(idElm.get("playlistId").getAsString(), StandardCharsets.UTF_8);
+    /**
+     * Reads the results of a search as they are streamed in, skipping everything that isn't used rather than
+     * building the whole response in memory.
+     */
+    private static List<SearchResult> parseSearchResults(Reader body) throws IOException {
+        List<SearchResult> searchResults = new ArrayList<>();
+        JsonReader reader = new JsonReader(body);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("items")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (searchResults.size() >= MAX_SEARCH_RESULTS) {
+                    CascadeBot.LOGGER.warn("YouTube returned more then 5 results! A check of the YouTube api is recommended");
+                    reader.skipValue();
+                    continue;
+                }
+                SearchResult searchResult = parseSearchResult(reader);
+                if (searchResult != null) {
+                    searchResults.add(searchResult);
+                }
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return Collections.unmodifiableList(searchResults);
+    }
+
+    private static SearchResult parseSearchResult(JsonReader reader) throws IOException {
+        String kind = null;
+        String id = null;
+        String title = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "kind":
+                                kind = reader.nextString();
                                 break;
-                            case "video":
-                                searchResultType = SearchResultType.VIDEO;
-                                url = "https://www.youtube.com/watch?v=" + URLEncoder.encode(idElm.get("videoId").getAsString(), StandardCharsets.UTF_8);
+                            case "videoId":
+                            case "playlistId":
+                                id = reader.nextString();
                                 break;
+                            default:
+                                reader.skipValue();
                         }
-                        JsonObject snippetElm = item.getAsJsonObject("snippet");
-                        String title = snippetElm.get("title").getAsString();
-                        searchResults.add(new SearchResult(searchResultType, url, title));
                     }
-                    searchResultConsumer.accept(searchResults);
-                } catch (IOException e) {
-                    Messaging.sendExceptionMessage(channel, "Error reading YouTube data!", e);
-                } catch (Exception e) {
-                    Messaging.sendExceptionMessage(channel, "Error while processing search!", e);
-                }
+                    reader.endObject();
+                    break;
+                case "snippet":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("title")) {
+                            title = reader.nextString();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
             }
-        });
+        }
+        reader.endObject();
+
+        if (kind == null || id == null) return null;
+        Matcher matcher = TYPE_PATTERN.matcher(kind);
+        if (!matcher.matches()) return null;
+        switch (matcher.group(1)) {
+            case "playlist":
+                return new SearchResult(SearchResultType.PLAYLIST, "https://www.youtube.com/playlist?list=" + URLEncoder.encode(id, StandardCharsets.UTF_8), title);
+            case "video":
+                return new SearchResult(SearchResultType.VIDEO, "https://www.youtube.com/watch?v=" + URLEncoder.encode(id, StandardCharsets.UTF_8), title);
+            default:
+                return null;
+        }
+    }
+
+    public static AsyncLoadingCache<String, List<SearchResult>> getSearchCache() {
+        return searchCache;
     }
 
     public static AudioPlayer createLavaLinkPlayer() {
@@ -205,6 +452,7 @@ public class MusicHandler {
 
         URI uri;
         String password;
+        String name;
 
         //TODO maybe add port option?
 
@@ -220,6 +468,18 @@ public class MusicHandler {
 
     }
 
+    private static class SearchFailedException extends IOException {
+
+        @Getter
+        private final String response;
+
+        private SearchFailedException(String response) {
+            super("YouTube returned an unsuccessful response");
+            this.response = response;
+        }
+
+    }
+
     public enum SearchResultType {
         VIDEO,
         PLAYLIST
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.GuildVoiceState;
+import net.dv8tion.jda.core.entities.VoiceChannel;
+import org.cascadebot.cascadebot.CascadeBot;
+import org.cascadebot.cascadebot.data.Config;
+import org.cascadebot.cascadebot.metrics.Metrics;
+import org.cascadebot.cascadebot.tasks.Task;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Saves players to a local file when the bot shuts down and resumes them when it starts again. Saved players are
+ * added as hibernated players straight away, so their queues are there as soon as they're used, and rejoin their voice
+ * channels at {@link Config#getMusicResumeRate()} so a restart doesn't cause every guild to load tracks at once.
+ */
+public final class MusicStateStore {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final Queue<SavedPlayer> pendingRejoins = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Saves every player that is connected to a voice channel along with every hibernated player. This is called
+     * while shutting down so it should only be called once nothing else is using the players.
+     *
+     * @param musicHandler The music handler to save the players of.
+     */
+    public static void save(MusicHandler musicHandler) {
+        if (Config.INS.getMusicResumeRate() <= 0) return;
+        List<SavedPlayer> savedPlayers = new ArrayList<>();
+        for (CascadePlayer player : musicHandler.getPlayers()) {
+            VoiceChannel channel = player.getConnectedChannel();
+            // Players that aren't connected will have been reclaimed shortly anyway
+            if (channel == null) continue;
+            savedPlayers.add(new SavedPlayer(channel.getIdLong(), player.snapshot()));
+        }
+        for (PlayerSnapshot snapshot : musicHandler.getHibernatedPlayers()) {
+            Guild guild = CascadeBot.INS.getShardManager().getGuildById(snapshot.getGuildId());
+            GuildVoiceState voiceState = guild == null ? null : guild.getSelfMember().getVoiceState();
+            long channelId = voiceState != null && voiceState.getChannel() != null ? voiceState.getChannel().getIdLong() : 0;
+            savedPlayers.add(new SavedPlayer(channelId, snapshot));
+        }
+        if (savedPlayers.isEmpty()) return;
+
+        Path file = Paths.get(Config.INS.getMusicStateFile());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(savedPlayers.size());
+            for (SavedPlayer savedPlayer : savedPlayers) {
+                write(out, savedPlayer);
+            }
+        } catch (IOException e) {
+            CascadeBot.LOGGER.error("Failed to save music players", e);
+            return;
+        }
+        try {
+            // Written to a temporary file first so a shutdown part way through doesn't leave half a file to resume from
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            CascadeBot.LOGGER.info("Saved {} music players", savedPlayers.size());
+        } catch (IOException e) {
+            CascadeBot.LOGGER.error("Failed to save music players", e);
+        }
+    }
+
+    /**
+     * Resumes the players saved when the bot last shut down. The file is deleted once it's read so players are only
+     * resumed once.
+     *
+     * @param musicHandler The music handler to resume the players in.
+     */
+    public static void resume(MusicHandler musicHandler) {
+        if (Config.INS.getMusicResumeRate() <= 0) return;
+        Path file = Paths.get(Config.INS.getMusicStateFile());
+        List<SavedPlayer> savedPlayers = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                CascadeBot.LOGGER.warn("Not resuming music players as they were saved in a different format");
+            } else {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    savedPlayers.add(read(in));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            CascadeBot.LOGGER.error("Failed to read saved music players", e);
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            CascadeBot.LOGGER.warn("Failed to delete saved music players", e);
+        }
+
+        for (SavedPlayer savedPlayer : savedPlayers) {
+            if (!musicHandler.addHibernatedPlayer(savedPlayer.snapshot)) continue;
+            if (savedPlayer.channelId != 0) {
+                pendingRejoins.add(savedPlayer);
+            } else {
+                Metrics.INS.playersResumed.labels("hibernated").inc();
+            }
+        }
+        CascadeBot.LOGGER.info("Resuming {} music players, {} of which will rejoin their channel", savedPlayers.size(), pendingRejoins.size());
+        if (pendingRejoins.isEmpty()) return;
+
+        new Task("resume-music") {
+            @Override
+            protected void execute() {
+                SavedPlayer savedPlayer = pendingRejoins.poll();
+                if (savedPlayer == null) {
+                    cancel();
+                    return;
+                }
+                rejoin(musicHandler, savedPlayer);
+            }
+        }.startNow(Math.max(1, (long) (1000 / Config.INS.getMusicResumeRate())));
+    }
+
+    private static void rejoin(MusicHandler musicHandler, SavedPlayer savedPlayer) {
+        VoiceChannel channel = CascadeBot.INS.getShardManager().getVoiceChannelById(savedPlayer.channelId);
+        if (channel == null) {
+            musicHandler.discardHibernatedPlayer(savedPlayer.snapshot);
+            Metrics.INS.playersResumed.labels("channel_missing").inc();
+            return;
+        }
+        // Restores the player if it hasn't been used since starting up
+        CascadePlayer player = musicHandler.getPlayer(savedPlayer.snapshot.getGuildId());
+        if (player == null) return;
+        if (player.getConnectedChannel() == null) {
+            player.join(channel);
+        }
+        Metrics.INS.playersResumed.labels("rejoined").inc();
+    }
+
+    private static void write(DataOutputStream out, SavedPlayer savedPlayer) throws IOException {
+        PlayerSnapshot snapshot = savedPlayer.snapshot;
+        out.writeLong(snapshot.getGuildId());
+        out.writeLong(savedPlayer.channelId);
+        out.writeInt(snapshot.getTracks().length);
+        out.write(snapshot.getTracks());
+        out.writeInt(snapshot.getRequesters().length);
+        for (long requester : snapshot.getRequesters()) {
+            out.writeLong(requester);
+        }
+        out.writeBoolean(snapshot.isPlaying());
+        out.writeLong(snapshot.getPosition());
+        out.writeBoolean(snapshot.isPaused());
+        out.writeInt(snapshot.getVolume());
+        out.writeUTF(snapshot.getLoopMode().name());
+        out.writeBoolean(snapshot.isShuffleEnabled());
+    }
+
+    private static SavedPlayer read(DataInputStream in) throws IOException {
+        long guildId = in.readLong();
+        long channelId = in.readLong();
+        byte[] tracks = new byte[in.readInt()];
+        in.readFully(tracks);
+        long[] requesters = new long[in.readInt()];
+        for (int i = 0; i < requesters.length; i++) {
+            requesters[i] = in.readLong();
+        }
+        PlayerSnapshot snapshot = new PlayerSnapshot(guildId, tracks, requesters, in.readBoolean(), in.readLong(),
+                in.readBoolean(), in.readInt(), CascadePlayer.LoopMode.valueOf(in.readUTF()), in.readBoolean());
+        return new SavedPlayer(channelId, snapshot);
+    }
+
+    private static class SavedPlayer {
+
+        // The voice channel the bot was in, or 0 if it wasn't in one
+        private final long channelId;
+        private final PlayerSnapshot snapshot;
+
+        private SavedPlayer(long channelId, PlayerSnapshot snapshot) {
+            this.channelId = channelId;
+            this.snapshot = snapshot;
+        }
+
+    }
+
+}
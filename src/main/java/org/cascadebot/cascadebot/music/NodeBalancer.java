@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import lavalink.client.io.LavalinkLoadBalancer;
+import lavalink.client.io.LavalinkSocket;
+import lavalink.client.io.PenaltyProvider;
+import lavalink.client.io.RemoteStats;
+import lavalink.client.io.jda.JdaLavalink;
+import lavalink.client.io.jda.JdaLink;
+import org.cascadebot.cascadebot.CascadeBot;
+import org.cascadebot.cascadebot.metrics.Metrics;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the health of each lavalink node and moves players off of nodes that have stopped sending stats or
+ * are dropping frames.
+ * <p>
+ * Nodes that disconnect are already handled by the lavalink client, which moves their players to the best node left.
+ * Players keep their position when they're moved as the new node is told to start the track where it left off.
+ */
+public class NodeBalancer implements PenaltyProvider {
+
+    // Moving a player restarts its track on the new node, so only a few are moved per check to avoid a burst of loads
+    static final int MAX_MIGRATIONS_PER_CHECK = 25;
+
+    private final JdaLavalink lavalink;
+    private final Map<LavalinkSocket, StatsReceived> statsReceived = new ConcurrentHashMap<>();
+
+    NodeBalancer(JdaLavalink lavalink) {
+        this.lavalink = lavalink;
+    }
+
+    @Override
+    public int getPenalty(LavalinkLoadBalancer.Penalties penalties) {
+        NodeHealth health = getHealth(penalties.getSocket());
+        return health == null ? 0 : health.getPenalty();
+    }
+
+    /**
+     * Gets the health of a node from the last stats it sent.
+     *
+     * @param node The node to get the health of.
+     * @return The health of the node, or {@code null} if it hasn't sent any stats yet.
+     */
+    public NodeHealth getHealth(LavalinkSocket node) {
+        RemoteStats stats = node.getStats();
+        if (stats == null) return null;
+        // The client only keeps the last stats, so the time they changed is used as the time they were received
+        StatsReceived received = statsReceived.compute(node, (key, last) ->
+                last != null && last.stats == stats ? last : new StatsReceived(stats, System.currentTimeMillis()));
+        return NodeHealth.of(stats, System.currentTimeMillis() - received.time);
+    }
+
+    /**
+     * Moves players from unhealthy nodes to the best healthy node.
+     */
+    void check() {
+        Set<LavalinkSocket> unhealthy = new HashSet<>();
+        boolean anyHealthy = false;
+        for (LavalinkSocket node : lavalink.getNodes()) {
+            NodeHealth health = getHealth(node);
+            if (!node.isAvailable() || health == null) continue;
+            if (health.isHealthy()) {
+                anyHealthy = true;
+            } else {
+                unhealthy.add(node);
+            }
+        }
+        statsReceived.keySet().retainAll(lavalink.getNodes());
+        // Moving players between unhealthy nodes would only make things worse
+        if (unhealthy.isEmpty() || !anyHealthy) return;
+
+        int migrations = 0;
+        for (JdaLink link : lavalink.getLinks()) {
+            LavalinkSocket node = link.getNode(false);
+            if (node == null || !unhealthy.contains(node)) continue;
+
+            LavalinkSocket target = lavalink.getLoadBalancer().determineBestSocket(link.getGuildIdLong());
+            if (target == null || unhealthy.contains(target)) continue;
+
+            CascadeBot.LOGGER.info("Moving player for guild {} from unhealthy node {} to {}", link.getGuildId(), node.getName(), target.getName());
+            link.changeNode(target);
+            Metrics.INS.lavalinkMigrations.labels(node.getName(), target.getName()).inc();
+            if (++migrations >= MAX_MIGRATIONS_PER_CHECK) break;
+        }
+    }
+
+    private static class StatsReceived {
+
+        private final RemoteStats stats;
+        private final long time;
+
+        private StatsReceived(RemoteStats stats, long time) {
+            this.stats = stats;
+            this.time = time;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import lavalink.client.io.RemoteStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The health of a lavalink node, worked out from the last stats it sent. Lavalink's load balancer already weighs
+ * nodes by their players, CPU and frame stats; this adds what it doesn't look at, which is whether the stats are
+ * still being sent at all and how close the node is to running out of memory.
+ */
+@Getter
+@AllArgsConstructor
+public class NodeHealth {
+
+    // Nodes send stats every minute, so a node that has missed two is assumed to be stuck
+    static final long STATS_STALE_AFTER = TimeUnit.MINUTES.toMillis(2);
+    // A player sends 3000 frames a minute; losing 10% of them is clearly audible
+    static final int UNHEALTHY_FRAMES_LOST = 300;
+    static final double UNHEALTHY_MEMORY_USAGE = 0.95;
+
+    // Large enough that a node with stale stats is only picked if every node's stats are stale
+    static final int STALE_PENALTY = 100_000;
+    static final int MAX_MEMORY_PENALTY = 1000;
+    // Memory usage below this doesn't add a penalty
+    private static final double MEMORY_PENALTY_THRESHOLD = 0.8;
+
+    private final int players;
+    private final int playingPlayers;
+    private final double systemLoad;
+    private final double lavalinkLoad;
+    // Averages per player per minute, or -1 if the node hasn't got any frame stats yet
+    private final int framesDeficit;
+    private final int framesNulled;
+    private final long memoryUsed;
+    private final long memoryReservable;
+    private final long statsAge;
+
+    public static NodeHealth of(RemoteStats stats, long statsAge) {
+        return new NodeHealth(stats.getPlayers(), stats.getPlayingPlayers(), stats.getSystemLoad(), stats.getLavalinkLoad(),
+                stats.getAvgFramesDeficitPerMinute(), stats.getAvgFramesNulledPerMinute(),
+                stats.getMemUsed(), stats.getMemReservable(), statsAge);
+    }
+
+    public boolean isStale() {
+        return statsAge > STATS_STALE_AFTER;
+    }
+
+    public double getMemoryUsage() {
+        return memoryReservable <= 0 ? 0 : (double) memoryUsed / memoryReservable;
+    }
+
+    public int getFramesLost() {
+        return Math.max(0, framesDeficit) + Math.max(0, framesNulled);
+    }
+
+    /**
+     * @return Whether players should be moved off of this node.
+     */
+    public boolean isHealthy() {
+        return !isStale() && getFramesLost() < UNHEALTHY_FRAMES_LOST && getMemoryUsage() < UNHEALTHY_MEMORY_USAGE;
+    }
+
+    /**
+     * @return The penalty added to the load balancer's own penalties for this node, higher is worse.
+     */
+    public int getPenalty() {
+        if (isStale()) return STALE_PENALTY;
+        double memoryUsage = getMemoryUsage();
+        if (memoryUsage <= MEMORY_PENALTY_THRESHOLD) return 0;
+        double memoryPressure = Math.min(1, (memoryUsage - MEMORY_PENALTY_THRESHOLD) / (1 - MEMORY_PENALTY_THRESHOLD));
+        return (int) (memoryPressure * MAX_MEMORY_PENALTY);
+    }
+
+}
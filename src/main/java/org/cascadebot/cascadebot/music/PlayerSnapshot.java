@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The state of a hibernated player, kept in place of the player itself so that it can be restored exactly as it was
+ * the next time it's used.
+ */
+@Getter
+@AllArgsConstructor
+public class PlayerSnapshot {
+
+    // Rough size of the fields other than the tracks and requesters
+    private static final long BASE_BYTES = 64;
+
+    private final long guildId;
+    // The playing track, if there was one, followed by the queue, compressed with TrackSerializer
+    private final byte[] tracks;
+    // The user that requested each track, as the encoded tracks don't include their user data
+    private final long[] requesters;
+    private final boolean playing;
+    private final long position;
+    private final boolean paused;
+    private final int volume;
+    private final CascadePlayer.LoopMode loopMode;
+    private final boolean shuffleEnabled;
+
+    /**
+     * @return The estimated memory used by this snapshot in bytes.
+     */
+    public long estimateMemoryUsage() {
+        return BASE_BYTES + tracks.length + (long) requesters.length * Long.BYTES;
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import io.prometheus.client.Summary;
+import lombok.Getter;
+import org.cascadebot.cascadebot.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Loads the tracks of a saved playlist with a bounded number of loads in flight at once.
+ * <p>
+ * Tracks are passed to the track consumer in playlist order as soon as every track before them has finished loading,
+ * so the first track can start playing while the rest of the playlist is still being resolved. Tracks that fail to
+ * load are skipped and collected so they can be reported together once the whole playlist has been loaded.
+ * <p>
+ * If the playlist has encoded tracks they are decoded locally, and only tracks which are missing or can no longer be
+ * decoded are resolved from their url.
+ */
+public class PlaylistLoader {
+
+    // Lavaplayer loads items on a pool of 10 threads which is shared by every guild
+    static final int MAX_CONCURRENT_LOADS = 4;
+
+    private final CascadePlayer player;
+    private final List<String> urls;
+    private final byte[] encodedTracks;
+    private final long requestUser;
+    private final Consumer<List<AudioTrack>> trackConsumer;
+    private final Consumer<PlaylistLoader> completionConsumer;
+
+    private List<AudioTrack> decodedTracks;
+
+    // The tracks loaded for each url, kept until every url before it has finished loading
+    private final List<List<AudioTrack>> results;
+    // The track each url resolved to, used to re-encode the playlist if any of them had to be resolved remotely
+    private final AudioTrack[] resolvedTracks;
+
+    private int nextLoad;
+    private int nextEmit;
+    private int inFlight;
+    private boolean filling;
+    private int remoteLoads;
+    private Summary.Timer timer;
+
+    @Getter
+    private final List<AudioTrack> loadedTracks = new ArrayList<>();
+    @Getter
+    private final List<String> failedTracks = new ArrayList<>();
+
+    /**
+     * @param player             The player to load the tracks with.
+     * @param urls               The urls of the tracks to load.
+     * @param encodedTracks      The tracks compressed with {@link TrackSerializer#compress(List)}, or {@code null}.
+     * @param requestUser        The ID of the user that requested the tracks.
+     * @param trackConsumer      Called with tracks in playlist order as they become available.
+     * @param completionConsumer Called once every track has either loaded or failed.
+     */
+    PlaylistLoader(CascadePlayer player, List<String> urls, byte[] encodedTracks, long requestUser,
+                   Consumer<List<AudioTrack>> trackConsumer, Consumer<PlaylistLoader> completionConsumer) {
+        this.player = player;
+        this.urls = List.copyOf(urls);
+        this.encodedTracks = encodedTracks;
+        this.requestUser = requestUser;
+        this.trackConsumer = trackConsumer;
+        this.completionConsumer = completionConsumer;
+        this.results = new ArrayList<>(Collections.nCopies(this.urls.size(), null));
+        this.resolvedTracks = new AudioTrack[this.urls.size()];
+    }
+
+    void start() {
+        timer = Metrics.INS.playlistLoadTime.startTimer();
+        if (encodedTracks != null) {
+            decodedTracks = TrackSerializer.decompress(encodedTracks);
+        }
+        if (urls.isEmpty()) {
+            complete();
+            return;
+        }
+        fill();
+    }
+
+    private void fill() {
+        synchronized (this) {
+            // Loads can finish on the calling thread, e.g. when they are decoded or cached. The thread that is
+            // already filling picks up the free slot instead of recursing once per track.
+            if (filling) return;
+            filling = true;
+        }
+        while (true) {
+            int index;
+            synchronized (this) {
+                if (nextLoad >= urls.size() || inFlight >= MAX_CONCURRENT_LOADS) {
+                    filling = false;
+                    return;
+                }
+                index = nextLoad++;
+                inFlight++;
+            }
+            load(index);
+        }
+    }
+
+    private void load(int index) {
+        String url = urls.get(index);
+        AudioTrack decoded = decodedTracks == null || index >= decodedTracks.size() ? null : decodedTracks.get(index);
+        // The identifier check catches encoded tracks which no longer line up with the urls
+        if (decoded != null && url.equals(decoded.getIdentifier())) {
+            decoded.setUserData(requestUser);
+            onLoaded(index, List.of(decoded), "decoded");
+            return;
+        }
+
+        Summary.Timer trackTimer = Metrics.INS.trackLoadTime.startTimer();
+        player.loadLink(url, requestUser, noMatch -> {
+            trackTimer.observeDuration();
+            onLoaded(index, null, "failed");
+        }, exception -> {
+            trackTimer.observeDuration();
+            onLoaded(index, null, "failed");
+        }, tracks -> {
+            trackTimer.observeDuration();
+            onLoaded(index, tracks, "loaded");
+        });
+    }
+
+    private void onLoaded(int index, List<AudioTrack> tracks, String result) {
+        boolean complete;
+        synchronized (this) {
+            inFlight--;
+            if (tracks == null || tracks.isEmpty()) {
+                Metrics.INS.playlistTracksLoaded.labels("failed").inc();
+                results.set(index, List.of());
+            } else {
+                Metrics.INS.playlistTracksLoaded.labels(result).inc(tracks.size());
+                results.set(index, tracks);
+                // Urls that resolve to more than one track are always resolved remotely
+                if (tracks.size() == 1) {
+                    resolvedTracks[index] = tracks.get(0);
+                    if (!result.equals("decoded")) {
+                        remoteLoads++;
+                    }
+                }
+            }
+
+            // The consumer is called while holding the lock so batches can't be passed on out of order
+            List<AudioTrack> ready = new ArrayList<>();
+            while (nextEmit < urls.size() && results.get(nextEmit) != null) {
+                // Emitted results are cleared so they don't keep the tracks alive; nothing before the cursor is read again
+                List<AudioTrack> emitted = results.set(nextEmit, null);
+                if (emitted.isEmpty()) {
+                    failedTracks.add(urls.get(nextEmit));
+                }
+                ready.addAll(emitted);
+                nextEmit++;
+            }
+            if (!ready.isEmpty()) {
+                loadedTracks.addAll(ready);
+                trackConsumer.accept(Collections.unmodifiableList(ready));
+            }
+            complete = nextEmit == urls.size();
+        }
+
+        if (complete) {
+            complete();
+        } else {
+            fill();
+        }
+    }
+
+    private void complete() {
+        timer.observeDuration();
+        completionConsumer.accept(this);
+    }
+
+    /**
+     * @return Whether any tracks had to be resolved remotely, meaning the stored encoded tracks are missing or out of
+     * date.
+     */
+    public synchronized boolean isReencodeNeeded() {
+        return remoteLoads > 0;
+    }
+
+    /**
+     * @return The track that each url resolved to, or {@code null} for urls that failed or resolved to more than
+     * one track.
+     */
+    public synchronized List<AudioTrack> getResolvedTracks() {
+        return Arrays.asList(resolvedTracks.clone());
+    }
+
+}
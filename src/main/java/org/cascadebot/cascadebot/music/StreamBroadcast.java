@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.format.AudioDataFormat;
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import lombok.Getter;
+import org.cascadebot.cascadebot.CascadeBot;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A live stream that is decoded once and shared by every player playing it. A single player decodes the stream into
+ * opus frames which are kept in a ring buffer, and each subscribed player reads the frames from there at its own pace.
+ * <p>
+ * Players join at the live edge, and players that fall too far behind, e.g. because they're paused, skip ahead to it.
+ *
+ * @see BroadcastAudioTrack
+ */
+public class StreamBroadcast {
+
+    // Enough frames to cover players reading at slightly different times, at 20ms per frame this is 5 seconds
+    private static final int CAPACITY = 256;
+
+    private static final Map<String, StreamBroadcast> broadcasts = new ConcurrentHashMap<>();
+
+    @Getter
+    private final String key;
+    private final AudioPlayer player;
+
+    private final byte[][] frames = new byte[CAPACITY][];
+    private final int[] lengths = new int[CAPACITY];
+    private final long[] timecodes = new long[CAPACITY];
+    @Getter
+    private final AudioDataFormat format = StandardAudioDataFormats.DISCORD_OPUS;
+    private long written;
+    private boolean ended;
+
+    @Getter
+    private int subscribers;
+
+    private StreamBroadcast(String key, AudioTrack track) {
+        this.key = key;
+        for (int i = 0; i < CAPACITY; i++) {
+            frames[i] = new byte[format.maximumChunkSize()];
+        }
+        player = MusicHandler.createLavaLinkPlayer();
+        player.playTrack(track);
+        Thread thread = new Thread(this::pump, "broadcast " + key);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Subscribes to the broadcast of a stream, starting the broadcast if nobody is subscribed to it yet.
+     *
+     * @param track The stream to subscribe to.
+     * @return The broadcast of the stream.
+     */
+    static StreamBroadcast subscribe(AudioTrack track) {
+        synchronized (broadcasts) {
+            String key = getKey(track);
+            StreamBroadcast broadcast = broadcasts.get(key);
+            // A broadcast that has ended is only removed once its player has been destroyed
+            if (broadcast == null || broadcast.isEnded()) {
+                broadcast = new StreamBroadcast(key, track.makeClone());
+                broadcasts.put(key, broadcast);
+            }
+            synchronized (broadcast) {
+                broadcast.subscribers++;
+            }
+            return broadcast;
+        }
+    }
+
+    /**
+     * Unsubscribes from this broadcast, stopping it once it has no subscribers left.
+     */
+    void unsubscribe() {
+        synchronized (broadcasts) {
+            synchronized (this) {
+                if (--subscribers > 0) return;
+            }
+            broadcasts.remove(key, this);
+            // Ends the pump thread, which destroys the player
+            player.stopTrack();
+        }
+    }
+
+    public static Collection<StreamBroadcast> getBroadcasts() {
+        return Collections.unmodifiableCollection(broadcasts.values());
+    }
+
+    private static String getKey(AudioTrack track) {
+        return track.getSourceManager().getSourceName() + ':' + track.getIdentifier();
+    }
+
+    /**
+     * Takes frames from the player decoding the stream and adds them to the ring buffer until the stream ends or the
+     * broadcast is stopped.
+     */
+    private void pump() {
+        MutableAudioFrame frame = new MutableAudioFrame();
+        frame.setBuffer(ByteBuffer.allocate(format.maximumChunkSize()));
+        try {
+            while (true) {
+                try {
+                    if (player.provide(frame, 1, TimeUnit.SECONDS)) {
+                        publish(frame);
+                        continue;
+                    }
+                } catch (TimeoutException e) {
+                    // Streams can take a while to start, so this only ends if the stream has stopped too
+                }
+                if (player.getPlayingTrack() == null) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            CascadeBot.LOGGER.warn("Broadcast of {} failed", key, e);
+        } finally {
+            broadcasts.remove(key, this);
+            player.destroy();
+            synchronized (this) {
+                ended = true;
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void publish(MutableAudioFrame frame) {
+        int slot = (int) (written % CAPACITY);
+        lengths[slot] = frame.getDataLength();
+        timecodes[slot] = frame.getTimecode();
+        frame.getData(frames[slot], 0);
+        written++;
+        notifyAll();
+    }
+
+    private synchronized boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * @return The cursor of the next frame to be broadcast, which new subscribers start reading from.
+     */
+    synchronized long getLiveCursor() {
+        return written;
+    }
+
+    /**
+     * Reads a frame from the broadcast, waiting for it to be broadcast if it hasn't been yet.
+     *
+     * @param cursor The cursor of the frame to read.
+     * @param target The frame to copy the data into.
+     * @return The cursor of the next frame, or -1 if the broadcast has ended.
+     */
+    synchronized long read(long cursor, MutableAudioFrame target) throws InterruptedException {
+        if (cursor < written - CAPACITY) {
+            // The frame has already been overwritten so this subscriber skips ahead to the live edge
+            cursor = written;
+        }
+        while (cursor >= written) {
+            if (ended) return -1;
+            wait();
+        }
+        int slot = (int) (cursor % CAPACITY);
+        target.store(frames[slot], 0, lengths[slot]);
+        target.setTimecode(timecodes[slot]);
+        return cursor + 1;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the results of loading tracks and playlists so the same input doesn't have to be resolved over the network
+ * again. Tracks are stored encoded with {@link com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager#encodeTrack}
+ * rather than as {@link AudioTrack}s, which can only be played once, and are decoded into new tracks on every hit.
+ */
+public final class TrackCache {
+
+    // Rough per entry overhead of the key, arrays and cache node on top of the encoded tracks
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private static final long TRACK_TTL = TimeUnit.HOURS.toNanos(6);
+    // Playlists are edited more often than tracks change so these expire sooner
+    private static final long PLAYLIST_TTL = TimeUnit.MINUTES.toNanos(30);
+
+    private static final Cache<String, CachedLoad> cache = Caffeine.newBuilder()
+            .maximumWeight(64 * 1024 * 1024)
+            .<String, CachedLoad>weigher((input, load) -> ENTRY_OVERHEAD + input.length() * 2 + load.getWeight())
+            .expireAfter(new Expiry<String, CachedLoad>() {
+                @Override
+                public long expireAfterCreate(String input, CachedLoad load, long currentTime) {
+                    return load.playlist ? PLAYLIST_TTL : TRACK_TTL;
+                }
+
+                @Override
+                public long expireAfterUpdate(String input, CachedLoad load, long currentTime, long currentDuration) {
+                    return expireAfterCreate(input, load, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String input, CachedLoad load, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+
+    /**
+     * Gets the tracks that were previously loaded for this input.
+     *
+     * @param input The identifier or URL that was loaded.
+     * @return New tracks decoded from the cache, or {@code null} if the input isn't cached.
+     */
+    public static List<AudioTrack> get(String input) {
+        CachedLoad load = cache.getIfPresent(input);
+        if (load == null) return null;
+
+        List<AudioTrack> tracks = new ArrayList<>(load.tracks.length);
+        for (byte[] track : load.tracks) {
+            AudioTrack decoded = TrackSerializer.decode(track);
+            if (decoded == null) {
+                // This shouldn't happen unless a source manager has changed, so treat it as a miss
+                cache.invalidate(input);
+                return null;
+            }
+            tracks.add(decoded);
+        }
+        return tracks;
+    }
+
+    public static void putTrack(String input, AudioTrack track) {
+        put(input, List.of(track), false);
+    }
+
+    public static void putPlaylist(String input, List<AudioTrack> tracks) {
+        put(input, tracks, true);
+    }
+
+    private static void put(String input, List<AudioTrack> tracks, boolean playlist) {
+        byte[][] encoded = new byte[tracks.size()][];
+        for (int i = 0; i < tracks.size(); i++) {
+            AudioTrack track = tracks.get(i);
+            // The details of streams, like the title, change while they're live
+            if (track.getInfo().isStream) return;
+            encoded[i] = TrackSerializer.encode(track);
+            if (encoded[i] == null) return;
+        }
+        cache.put(input, new CachedLoad(encoded, playlist));
+    }
+
+    /**
+     * @return The estimated size of everything in the cache in bytes.
+     */
+    public static long getWeightedSize() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    public static Cache<String, ?> getCache() {
+        return cache;
+    }
+
+    private static class CachedLoad {
+
+        private final byte[][] tracks;
+        private final boolean playlist;
+
+        private CachedLoad(byte[][] tracks, boolean playlist) {
+            this.tracks = tracks;
+            this.playlist = playlist;
+        }
+
+        private int getWeight() {
+            int weight = 0;
+            for (byte[] track : tracks) {
+                weight += track.length + 16;
+            }
+            return weight;
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A queue of tracks backed by a circular array. On top of the normal queue operations this allows indexed access,
+ * in-place shuffling, moving and removing tracks at any position and keeps a running total of the queue's duration.
+ * <p>
+ * All operations are synchronized so the queue can be read by commands while the player listener polls from it.
+ * Iterators work on a snapshot of the queue taken when they're created and don't support removal.
+ */
+public class TrackQueue extends AbstractQueue<AudioTrack> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The capacity is always a power of two so indexes can wrap with a mask
+    private AudioTrack[] elements = new AudioTrack[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+    private long duration;
+
+    @Override
+    public synchronized boolean offer(AudioTrack track) {
+        Objects.requireNonNull(track, "track");
+        ensureCapacity(size + 1);
+        elements[physical(size)] = track;
+        size++;
+        duration += durationOf(track);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends AudioTrack> tracks) {
+        ensureCapacity(size + tracks.size());
+        for (AudioTrack track : tracks) {
+            offer(track);
+        }
+        return !tracks.isEmpty();
+    }
+
+    @Override
+    public synchronized AudioTrack poll() {
+        if (size == 0) return null;
+        AudioTrack track = elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        duration -= durationOf(track);
+        return track;
+    }
+
+    @Override
+    public synchronized AudioTrack peek() {
+        return size == 0 ? null : elements[head];
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return The total duration of all tracks in the queue in milliseconds, not counting streams.
+     */
+    public synchronized long getDuration() {
+        return duration;
+    }
+
+    public synchronized AudioTrack get(int index) {
+        Objects.checkIndex(index, size);
+        return elements[physical(index)];
+    }
+
+    /**
+     * Gets a copy of part of the queue. The range is clamped to the size of the queue, so this can be used
+     * for paging without worrying about the queue changing in the meantime.
+     *
+     * @param from The index of the first track, inclusive.
+     * @param to   The index of the last track, exclusive.
+     * @return A list containing the tracks in the range.
+     */
+    public synchronized List<AudioTrack> getRange(int from, int to) {
+        to = Math.min(to, size);
+        if (from < 0 || from >= to) return List.of();
+        List<AudioTrack> tracks = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            tracks.add(elements[physical(i)]);
+        }
+        return tracks;
+    }
+
+    public synchronized AudioTrack removeAt(int index) {
+        Objects.checkIndex(index, size);
+        AudioTrack track = elements[physical(index)];
+        removeRange(index, index + 1);
+        return track;
+    }
+
+    /**
+     * Removes all tracks in the range, shifting the tracks after it up the queue.
+     *
+     * @param from The index of the first track to remove, inclusive.
+     * @param to   The index of the last track to remove, exclusive.
+     */
+    public synchronized void removeRange(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        int count = to - from;
+        if (count == 0) return;
+        for (int i = from; i < to; i++) {
+            duration -= durationOf(elements[physical(i)]);
+        }
+        for (int i = to; i < size; i++) {
+            elements[physical(i - count)] = elements[physical(i)];
+        }
+        for (int i = size - count; i < size; i++) {
+            elements[physical(i)] = null;
+        }
+        size -= count;
+    }
+
+    /**
+     * Moves a track to another position in the queue, shifting the tracks in between.
+     *
+     * @param from The current index of the track.
+     * @param to   The index to move the track to.
+     */
+    public synchronized void move(int from, int to) {
+        Objects.checkIndex(from, size);
+        Objects.checkIndex(to, size);
+        AudioTrack track = elements[physical(from)];
+        if (from < to) {
+            for (int i = from; i < to; i++) {
+                elements[physical(i)] = elements[physical(i + 1)];
+            }
+        } else {
+            for (int i = from; i > to; i--) {
+                elements[physical(i)] = elements[physical(i - 1)];
+            }
+        }
+        elements[physical(to)] = track;
+    }
+
+    public void shuffle() {
+        shuffle(ThreadLocalRandom.current());
+    }
+
+    public synchronized void shuffle(Random random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int a = physical(i);
+            int b = physical(j);
+            AudioTrack track = elements[a];
+            elements[a] = elements[b];
+            elements[b] = track;
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (elements[physical(i)].equals(o)) {
+                removeRange(i, i + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(elements, null);
+        head = 0;
+        size = 0;
+        duration = 0;
+    }
+
+    @Override
+    public Iterator<AudioTrack> iterator() {
+        return Collections.unmodifiableList(getRange(0, Integer.MAX_VALUE)).iterator();
+    }
+
+    @Override
+    public synchronized Object[] toArray() {
+        return getRange(0, size).toArray();
+    }
+
+    private int physical(int index) {
+        return (head + index) & (elements.length - 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= elements.length) return;
+        int newCapacity = Integer.highestOneBit(capacity - 1) << 1;
+        AudioTrack[] newElements = new AudioTrack[newCapacity];
+        for (int i = 0; i < size; i++) {
+            newElements[i] = elements[physical(i)];
+        }
+        elements = newElements;
+        head = 0;
+    }
+
+    private static long durationOf(AudioTrack track) {
+        // Streams report a duration of Long.MAX_VALUE which would overflow the total
+        return track.getInfo().isStream ? 0 : track.getDuration();
+    }
+
+}
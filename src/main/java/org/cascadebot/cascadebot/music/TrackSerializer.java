@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageInput;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageOutput;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.DecodedTrackHolder;
+import org.cascadebot.cascadebot.CascadeBot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Converts tracks to and from lavaplayer's binary track format so they can be stored and turned back into playable
+ * tracks without resolving them against their source again.
+ */
+public final class TrackSerializer {
+
+    private static final int FORMAT_VERSION = 1;
+
+    public static byte[] encode(AudioTrack track) {
+        if (track instanceof BroadcastAudioTrack) {
+            track = ((BroadcastAudioTrack) track).getSource();
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MusicHandler.getPlayerManager().encodeTrack(new MessageOutput(out), track);
+            return out.toByteArray();
+        } catch (IOException e) {
+            CascadeBot.LOGGER.warn("Failed to encode track {}", track.getIdentifier(), e);
+            return null;
+        }
+    }
+
+    public static AudioTrack decode(byte[] track) {
+        try {
+            DecodedTrackHolder holder = MusicHandler.getPlayerManager().decodeTrack(new MessageInput(new ByteArrayInputStream(track)));
+            return holder == null ? null : holder.decodedTrack;
+        } catch (IOException e) {
+            CascadeBot.LOGGER.warn("Failed to decode track", e);
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a list of tracks into a single compressed blob. Tracks are compressed together as the encoded tracks
+     * of a playlist share most of their strings, such as the source and author names.
+     *
+     * @param tracks The tracks to encode. Entries may be {@code null}, in which case they are stored as missing.
+     * @return The compressed tracks.
+     */
+    public static byte[] compress(List<AudioTrack> tracks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(tracks.size());
+            for (AudioTrack track : tracks) {
+                // The position of the track is encoded too, so a clone is used to store tracks that are playing from the start
+                byte[] encoded = track == null ? null : encode(track.makeClone());
+                if (encoded == null) {
+                    out.writeInt(0);
+                } else {
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            }
+        } catch (IOException e) {
+            // Only thrown by the underlying stream, which is in memory
+            throw new IllegalStateException(e);
+        } finally {
+            // Deflaters passed to the stream aren't released when it's closed
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes tracks that were encoded with {@link #compress(List)}.
+     *
+     * @param compressed The compressed tracks.
+     * @return The decoded tracks, in the same order they were encoded. Tracks which were missing or can no longer be
+     * decoded, e.g. because their source manager has changed, are {@code null}. Returns {@code null} if the blob
+     * itself can't be read.
+     */
+    public static List<AudioTrack> decompress(byte[] compressed) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            if (in.readByte() != FORMAT_VERSION) return null;
+            int count = in.readInt();
+            List<AudioTrack> tracks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length == 0) {
+                    tracks.add(null);
+                    continue;
+                }
+                byte[] encoded = new byte[length];
+                in.readFully(encoded);
+                tracks.add(decode(encoded));
+            }
+            return tracks;
+        } catch (IOException e) {
+            CascadeBot.LOGGER.warn("Failed to decompress tracks", e);
+            return null;
+        }
+    }
+
+}
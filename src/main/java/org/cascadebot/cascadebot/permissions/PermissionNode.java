@@ -5,34 +5,84 @@
 
 package org.cascadebot.cascadebot.permissions;
 
-import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
-import java.util.Arrays;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
-// All credit to the FlareBot project for this file
+// All credit to the FlareBot project for the original version of this file
 // https://github.com/FlareBot/FlareBot/blob/master/src/main/java/stream/flarebot/flarebot/permissions/PermissionNode.java
-@AllArgsConstructor
-@Getter
+@EqualsAndHashCode(of = "node")
 public class PermissionNode implements Predicate<String> {
 
+    // Splits by a `*` that's on a start of a string or has . around them
+    private static final Pattern WILDCARD_SPLIT = Pattern.compile("(?:^\\*(\\.))|(?:(?<=\\.)\\*(?=\\.))|(?:(?<=\\.)\\*$)");
+
+    @Getter
     private final String node;
 
+    // The literal parts of the node, each wildcard between them matches one or more characters
+    private final String[] parts;
+    private final boolean trailingWildcard;
+    private final boolean matchesAll;
+
+    @Getter
+    private final boolean wildcard;
+    // The number of literal characters in the node, used to order nodes from most to least specific
+    @Getter
+    private final int specificity;
+
+    public PermissionNode(String node) {
+        this.node = node;
+        this.matchesAll = node.equals("*");
+        this.parts = WILDCARD_SPLIT.split(node);
+        this.trailingWildcard = node.endsWith("*");
+        this.wildcard = matchesAll || trailingWildcard || parts.length != 1;
+        int literals = 0;
+        for (String part : parts) {
+            literals += part.length();
+        }
+        this.specificity = matchesAll ? 0 : literals;
+    }
+
+    /**
+     * Tests a permission against this node. A wildcard matches one or more of any character.
+     * The node is compiled once when it is created so this doesn't allocate or use regex.
+     *
+     * @param permission The permission to test.
+     * @return Whether this node matches the permission.
+     */
     @Override
     public boolean test(String permission) {
-        if (getNode().equals("*"))
-            return true;
-        // It splits by a `*` that's on a start of a string or has . around them
-        String textNode = Arrays.stream(getNode().split("(?:^\\*(\\.))|(?:(?<=\\.)\\*(?=\\.))|(?:(?<=\\.)\\*$)"))
-                // Then it escapes all of that so its not regexps
-                .map(Pattern::quote)
-                // And then it joins them with a match all regexp
-                .collect(Collectors.joining(".+")) + (getNode().endsWith("*") ? ".+" : "");
-        // And then it lets Java REGEXP compare them. Ty @I-Al-Istannen for making me do this comment
-        return permission.matches(textNode);
+        if (matchesAll) return true;
+        if (parts.length == 0) {
+            return trailingWildcard ? !permission.isEmpty() : permission.isEmpty();
+        }
+
+        // The first part is always anchored to the start
+        if (!permission.startsWith(parts[0])) return false;
+        int position = parts[0].length();
+
+        for (int i = 1; i < parts.length; i++) {
+            String part = parts[i];
+            if (i == parts.length - 1 && !trailingWildcard) {
+                // The last part is anchored to the end and the wildcard before it needs at least one character
+                int start = permission.length() - part.length();
+                return start > position && permission.startsWith(part, start);
+            }
+            // Taking the first occurrence always leaves the most room for the following parts
+            int index = permission.indexOf(part, position + 1);
+            if (index == -1) return false;
+            position = index + part.length();
+        }
+
+        return trailingWildcard ? permission.length() > position : permission.length() == position;
+    }
+
+    @Override
+    public String toString() {
+        return node;
     }
 
-}
\ No newline at end of file
+}
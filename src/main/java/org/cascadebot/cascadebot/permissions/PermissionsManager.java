@@ -5,9 +5,9 @@
 
 package org.cascadebot.cascadebot.permissions;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.Member;
@@ -24,7 +24,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 public class PermissionsManager {
 
@@ -32,17 +31,13 @@ public class PermissionsManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PermissionsManager.class);
 
-    private LoadingCache<Long, Set<Long>> officialGuildRoleIDCache = Caffeine.newBuilder()
-            .expireAfterWrite(10, TimeUnit.MINUTES)
-            .refreshAfterWrite(5, TimeUnit.MINUTES)
-            .build(DiscordUtils::getAllOfficialRoleIds);
-    private LoadingCache<Long, SecurityLevel> securityLevelCache = Caffeine.newBuilder()
-            .expireAfterWrite(10, TimeUnit.MINUTES)
-            .refreshAfterWrite(5, TimeUnit.MINUTES)
-            .build(userId -> Security.getLevelById(userId, officialGuildRoleIDCache.get(userId)));
+    // Every user with a security level, built from the official guild on ready and patched on role changes.
+    // This is copy-on-write as it's read on every permission check but changes very rarely.
+    private volatile TLongObjectMap<SecurityLevel> securityLevels = new TLongObjectHashMap<>();
 
     private ConcurrentHashMap<String, CascadePermission> permissions = new ConcurrentHashMap<>();
     private Set<CascadePermission> defaultPermissions = Set.of();
+    private Set<CascadePermission> allPermissions = Set.of();
 
     public void registerPermissions() {
         if (!permissions.isEmpty()) throw new IllegalStateException("Permissions have already been registered!");
@@ -74,17 +69,22 @@ public class PermissionsManager {
 
         LOGGER.info("{} permissions loaded in {}ms!", permissions.size(), System.currentTimeMillis() - startTime);
 
-        defaultPermissions = permissions.values()
-                .stream()
-                .filter(CascadePermission::isDefaultPerm)
-                .collect(ImmutableSet.toImmutableSet());
-
+        buildPermissionSets();
     }
 
     private void registerPermission(CascadePermission permission) {
         permissions.put(permission.getPermission(), permission);
     }
 
+    private void buildPermissionSets() {
+        defaultPermissions = permissions.values()
+                .stream()
+                .filter(CascadePermission::isDefaultPerm)
+                .collect(ImmutableSet.toImmutableSet());
+        // Permissions can't change after registration so the set is built once rather than on every call
+        allPermissions = ImmutableSet.copyOf(permissions.values());
+    }
+
     public CascadePermission getPermission(String permission) {
         CascadePermission perm = permissions.get(permission);
         if (perm == null) perm = permissions.get(PERMISSION_PREFIX + permission);
@@ -133,14 +133,14 @@ public class PermissionsManager {
         if (defaultOnly) {
             return defaultPermissions;
         } else {
-            return permissions.values().stream().collect(ImmutableSet.toImmutableSet());
+            return allPermissions;
         }
     }
 
 
     public boolean isAuthorised(ICommandExecutable command, GuildData guildData, Member member) {
         if (command instanceof ICommandRestricted) {
-            SecurityLevel userLevel = securityLevelCache.get(member.getUser().getIdLong());
+            SecurityLevel userLevel = getUserSecurityLevel(member.getUser().getIdLong());
             if (userLevel == null) return false;
             SecurityLevel levelToCheck = ((ICommandRestricted) command).getCommandLevel();
             return userLevel.isAuthorised(levelToCheck);
@@ -152,12 +152,54 @@ public class PermissionsManager {
     }
 
     public SecurityLevel getUserSecurityLevel(long userId) {
-        return securityLevelCache.get(userId);
+        return securityLevels.get(userId);
     }
 
-    public void clearCacheForUser(long userId) {
-        officialGuildRoleIDCache.refresh(userId);
-        securityLevelCache.refresh(userId);
+    /**
+     * Rebuilds the security levels for every user from the config and the members of the official guild.
+     * This should be called once all shards are ready.
+     */
+    public synchronized void buildSecurityLevels() {
+        TLongObjectMap<SecurityLevel> levels = new TLongObjectHashMap<>();
+        // Levels are in ascending order so higher levels overwrite lower ones. These may include
+        // role IDs, which is harmless as they will never collide with a user ID.
+        for (SecurityLevel level : SecurityLevel.values()) {
+            for (long id : Security.getIds(level)) {
+                levels.put(id, level);
+            }
+        }
+
+        Guild officialGuild = DiscordUtils.getOfficialGuild();
+        if (officialGuild != null) {
+            for (Member member : officialGuild.getMembers()) {
+                SecurityLevel level = Security.getLevelById(member.getUser().getIdLong(), DiscordUtils.getAllRoleIds(member));
+                if (level != null) {
+                    levels.put(member.getUser().getIdLong(), level);
+                }
+            }
+        }
+
+        securityLevels = levels;
+        LOGGER.info("Loaded security levels for {} users and roles", levels.size());
+    }
+
+    /**
+     * Recalculates the security level of a user after their roles in the official guild change.
+     *
+     * @param userId The ID of the user.
+     * @param member The user's member in the official guild, or {@code null} if they have left.
+     */
+    public synchronized void updateSecurityLevel(long userId, Member member) {
+        SecurityLevel level = Security.getLevelById(userId, member == null ? Set.of() : DiscordUtils.getAllRoleIds(member));
+        if (level == securityLevels.get(userId)) return;
+
+        TLongObjectMap<SecurityLevel> levels = new TLongObjectHashMap<>(securityLevels);
+        if (level == null) {
+            levels.remove(userId);
+        } else {
+            levels.put(userId, level);
+        }
+        securityLevels = levels;
     }
 
 
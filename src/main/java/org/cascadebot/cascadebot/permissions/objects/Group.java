@@ -33,11 +33,11 @@ public class Group extends PermissionHolder {
         this.name = name;
     }
 
-    public boolean linkRole(long roleId) {
+    boolean linkRole(long roleId) {
         return roleIds.add(roleId);
     }
 
-    public boolean unlinkRole(long roleId) {
+    boolean unlinkRole(long roleId) {
         return roleIds.remove(roleId);
     }
 
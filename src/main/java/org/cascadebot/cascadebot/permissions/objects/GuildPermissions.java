@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.permissions.objects;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.bild.codec.annotations.Transient;
+import lombok.Value;
+import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.Channel;
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.Role;
+import net.dv8tion.jda.core.utils.Checks;
+import net.dv8tion.jda.core.utils.PermissionUtil;
+import org.cascadebot.cascadebot.CascadeBot;
+import org.cascadebot.cascadebot.Environment;
+import org.cascadebot.cascadebot.data.objects.GuildSettingsCore;
+import org.cascadebot.cascadebot.permissions.CascadePermission;
+import org.cascadebot.cascadebot.permissions.Security;
+import org.cascadebot.shared.SecurityLevel;
+import spark.utils.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class GuildPermissions {
+
+    // Used in place of members that don't have a user entry. This must never be modified!
+    private static final User EMPTY_USER = new User();
+
+    private PermissionMode mode = PermissionMode.MOST_RESTRICTIVE;
+
+    private List<Group> groups = Collections.synchronizedList(new ArrayList<>());
+    private Map<Long, User> users = new ConcurrentHashMap<>();
+
+    // Evaluated permission results per member. This is invalidated by the mutators below and by
+    // GeneralEventListener when something outside of the guild permissions changes a result.
+    @Transient
+    private volatile Cache<Long, Map<DecisionKey, Result>> decisionCache;
+
+    // Snapshot of which groups are linked to which roles. Rebuilt whenever groups or role links change.
+    @Transient
+    private volatile RoleIndex roleIndex;
+
+    public boolean hasPermission(Member member, CascadePermission permission, GuildSettingsCore settings) {
+        return hasPermission(member, null, permission, settings);
+    }
+
+    public boolean hasPermission(Member sender, Channel channel, CascadePermission permission, GuildSettingsCore settings) {
+        return evalPermission(sender, channel, permission, settings).isAllowed();
+    }
+
+    public Result evalPermission(Member member, CascadePermission permission, GuildSettingsCore settings) {
+        return evalPermission(member, null, permission, settings);
+    }
+
+    public Result evalPermission(Member member, Channel channel, CascadePermission permission, GuildSettingsCore settings) {
+
+        Checks.notNull(member, "member");
+        Checks.notNull(permission, "permission");
+
+        DecisionKey key = new DecisionKey(channel == null ? 0 : channel.getIdLong(), permission.getPermission());
+        // If the member is invalidated while evaluating, the result is put into a map that is no longer cached
+        Map<DecisionKey, Result> memberDecisions = getDecisionCache().get(member.getUser().getIdLong(), id -> new ConcurrentHashMap<>());
+        Result result = memberDecisions.get(key);
+        if (result == null) {
+            result = computePermission(member, channel, permission, settings);
+            memberDecisions.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates a batch of permissions for a member. The member's user entry, groups and Discord permissions
+     * are resolved once for the whole batch, which makes this much cheaper than checking each permission
+     * separately when building listings such as help output.
+     *
+     * @param member      The member to evaluate the permissions for.
+     * @param channel     The channel to evaluate Discord permissions in, or {@code null} to use guild permissions.
+     * @param permissions The permissions to evaluate.
+     * @param settings    The settings of this guild.
+     * @return A bitset where bit {@code i} is set if the {@code i}th permission (in iteration order) is allowed.
+     */
+    public BitSet evaluateAll(Member member, Channel channel, Collection<CascadePermission> permissions, GuildSettingsCore settings) {
+        Checks.notNull(member, "member");
+        Checks.notNull(permissions, "permissions");
+
+        BitSet allowed = new BitSet(permissions.size());
+        if (getOverride(member, settings) != null) {
+            allowed.set(0, permissions.size());
+            return allowed;
+        }
+
+        User user = getUserOrEmpty(member.getUser().getIdLong());
+        List<Group> userGroups = getUserGroups(member);
+        // Only resolved if a permission falls back to Discord permissions, then reused for the rest of the batch
+        long discordPermissions = -1;
+
+        int i = 0;
+        for (CascadePermission permission : permissions) {
+            Result result = evaluate(user, userGroups, permission);
+            if (result.isAllowed()) {
+                allowed.set(i);
+            } else if (result.isNeutral() && !CollectionUtils.isEmpty(permission.getDiscordPerms())) {
+                if (discordPermissions == -1) discordPermissions = getDiscordPermissions(member, channel);
+                if (hasDiscordPermissions(discordPermissions, permission.getDiscordPerms())) allowed.set(i);
+            }
+            i++;
+        }
+        return allowed;
+    }
+
+    private Result computePermission(Member member, Channel channel, CascadePermission permission, GuildSettingsCore settings) {
+        Result override = getOverride(member, settings);
+        if (override != null) return override;
+
+        User user = getUserOrEmpty(member.getUser().getIdLong());
+        // Get all user groups that are directly assigned and the groups assigned through roles
+        List<Group> userGroups = getUserGroups(member);
+
+        Result result = evaluate(user, userGroups, permission);
+        // Discord permissions will only allow a permission if is not already allowed or denied.
+        // It will not override Cascade permissions!
+        if (result.isNeutral() && !CollectionUtils.isEmpty(permission.getDiscordPerms())
+                && hasDiscordPermissions(getDiscordPermissions(member, channel), permission.getDiscordPerms())) {
+            result = Result.of(PermissionAction.ALLOW, Result.ResultCause.DISCORD, permission.getDiscordPerms());
+        }
+        return result;
+    }
+
+    private Result getOverride(Member member, GuildSettingsCore settings) {
+        // This allows developers and owners to go into guilds and fix problems
+        if (Security.isAuthorised(member.getUser().getIdLong(), SecurityLevel.DEVELOPER)) {
+            return Result.of(PermissionAction.ALLOW, Result.ResultCause.OFFICIAL, SecurityLevel.DEVELOPER);
+        }
+        if (Security.isAuthorised(member.getUser().getIdLong(), SecurityLevel.CONTRIBUTOR) && Environment.isDevelopment()) {
+            return Result.of(PermissionAction.ALLOW, Result.ResultCause.OFFICIAL, SecurityLevel.CONTRIBUTOR);
+        }
+        // If the user is owner then they have all perms, obsv..
+        if (member.isOwner()) return Result.of(PermissionAction.ALLOW, Result.ResultCause.GUILD);
+        // By default all members with the administrator perm have access to all perms; this can be turned off
+        if (member.hasPermission(Permission.ADMINISTRATOR) && settings.isAdminsHaveAllPerms()) {
+            return Result.of(PermissionAction.ALLOW, Result.ResultCause.GUILD);
+        }
+        return null;
+    }
+
+    private Result evaluate(User user, List<Group> userGroups, CascadePermission permission) {
+        Result result = getDefaultAction(permission);
+        Result evaluatedResult = Result.of(PermissionAction.NEUTRAL);
+
+        if (mode == PermissionMode.MOST_RESTRICTIVE) {
+            evaluatedResult = evaluateMostRestrictiveMode(user, userGroups, permission);
+        } else if (mode == PermissionMode.HIERARCHICAL) {
+            evaluatedResult = evaluateHierarchicalMode(user, userGroups, permission);
+        }
+
+        if (!evaluatedResult.isNeutral()) {
+            result = evaluatedResult;
+        }
+
+        return result;
+    }
+
+    private long getDiscordPermissions(Member member, Channel channel) {
+        // The effective permissions already account for the owner and administrator
+        if (channel != null) {
+            return PermissionUtil.getEffectivePermission(channel, member);
+        } else {
+            return PermissionUtil.getEffectivePermission(member);
+        }
+    }
+
+    private boolean hasDiscordPermissions(long discordPermissions, Set<Permission> permissions) {
+        if (CollectionUtils.isEmpty(permissions)) return false;
+        long required = Permission.getRaw(permissions);
+        return (discordPermissions & required) == required;
+    }
+
+    private Result evaluateMostRestrictiveMode(User user, List<Group> userGroups, CascadePermission permission) {
+        Result result = user.evaluatePermission(permission);
+        if (result.isDenied()) return result;
+
+        for (Group group : userGroups) {
+            Result groupResult = group.evaluatePermission(permission);
+            // If the result is neutral, it has no effect on the existing result.
+            if (groupResult.isNeutral()) continue;
+            // This is most restrictive mode so if any group permissions is DENY, the evaluated result is DENY.
+            if (groupResult.isDenied()) return groupResult;
+            result = groupResult;
+        }
+        return result;
+    }
+
+    private Result evaluateHierarchicalMode(User user, List<Group> userGroups, CascadePermission permission) {
+        Result result = Result.of(PermissionAction.NEUTRAL);
+        // Loop through the groups backwards to preserve hierarchy; groups higher up override lower groups.
+        for (int i = userGroups.size() - 1; i >= 0; i--) {
+            Result groupResult = userGroups.get(i).evaluatePermission(permission);
+            if (groupResult.isNeutral()) continue;
+            // This overrides any previous action with no regard to what it was.
+            result = groupResult;
+        }
+
+        Result userResult = user.evaluatePermission(permission);
+        // User permissions take ultimate precedence over group permissions
+        if (!userResult.isNeutral()) {
+            result = userResult;
+        }
+
+        return result;
+    }
+
+    private Result getDefaultAction(CascadePermission permission) {
+        // A default permission will never explicitly deny a permission.
+        return permission.isDefaultPerm() ?
+                Result.of(PermissionAction.ALLOW, Result.ResultCause.DEFAULT) :
+                Result.of(PermissionAction.DENY, Result.ResultCause.DEFAULT);
+    }
+
+    private Cache<Long, Map<DecisionKey, Result>> getDecisionCache() {
+        Cache<Long, Map<DecisionKey, Result>> cache = decisionCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = decisionCache;
+                if (cache == null) {
+                    cache = Caffeine.newBuilder()
+                            .maximumSize(1000)
+                            .expireAfterAccess(10, TimeUnit.MINUTES)
+                            .build();
+                    decisionCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Clears the cached permission results for a single member. Use this when something about the member changes,
+     * i.e. their roles or their user permissions.
+     *
+     * @param userId The ID of the member to clear the results for.
+     */
+    public void invalidateMember(long userId) {
+        Cache<Long, Map<DecisionKey, Result>> cache = decisionCache;
+        if (cache != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    /**
+     * Clears all cached permission results for this guild. Use this when something that affects more than
+     * one member changes, i.e. groups, the permission mode or a guild setting.
+     */
+    public void invalidateAll() {
+        Cache<Long, Map<DecisionKey, Result>> cache = decisionCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    //region Mutators
+
+    public PermissionMode getMode() {
+        return mode;
+    }
+
+    public void setMode(PermissionMode mode) {
+        this.mode = mode;
+        invalidateAll();
+    }
+
+    public boolean addPermission(Group group, String permission) {
+        boolean added = group.addPermission(permission);
+        invalidateAll();
+        return added;
+    }
+
+    public boolean removePermission(Group group, String permission) {
+        boolean removed = group.removePermission(permission);
+        invalidateAll();
+        return removed;
+    }
+
+    public boolean addUserPermission(long userId, String permission) {
+        boolean[] added = new boolean[1];
+        users.compute(userId, (id, user) -> {
+            if (user == null) user = new User();
+            added[0] = user.addPermission(permission);
+            return user;
+        });
+        invalidateMember(userId);
+        return added[0];
+    }
+
+    public boolean removeUserPermission(long userId, String permission) {
+        boolean[] removed = new boolean[1];
+        users.computeIfPresent(userId, (id, user) -> {
+            removed[0] = user.removePermission(permission);
+            return user.isEmpty() ? null : user;
+        });
+        invalidateMember(userId);
+        return removed[0];
+    }
+
+    public boolean linkRole(Group group, long roleId) {
+        boolean linked = group.linkRole(roleId);
+        rebuildRoleIndex();
+        invalidateAll();
+        return linked;
+    }
+
+    public boolean unlinkRole(Group group, long roleId) {
+        boolean unlinked = group.unlinkRole(roleId);
+        rebuildRoleIndex();
+        invalidateAll();
+        return unlinked;
+    }
+
+    public boolean addUserToGroup(long userId, Group group) {
+        boolean[] added = new boolean[1];
+        users.compute(userId, (id, user) -> {
+            if (user == null) user = new User();
+            added[0] = user.addGroup(group);
+            return user;
+        });
+        invalidateMember(userId);
+        return added[0];
+    }
+
+    public boolean removeUserFromGroup(long userId, Group group) {
+        boolean[] removed = new boolean[1];
+        users.computeIfPresent(userId, (id, user) -> {
+            removed[0] = user.removeGroup(group);
+            // Don't keep users around that have nothing left assigned
+            return user.isEmpty() ? null : user;
+        });
+        invalidateMember(userId);
+        return removed[0];
+    }
+
+    private User getUserOrEmpty(long userId) {
+        return users.getOrDefault(userId, EMPTY_USER);
+    }
+
+    /**
+     * Removes all user entries that have no permissions or groups. These evaluate the same as a missing entry
+     * so this only reduces the size of the stored document and heap usage.
+     * <p>
+     * Users are only ever created and changed inside {@code users.compute}, which holds the same lock as the check
+     * here, so an entry can't be removed between being created and being changed.
+     */
+    public void compact() {
+        for (Long userId : users.keySet()) {
+            users.computeIfPresent(userId, (id, user) -> user.isEmpty() ? null : user);
+        }
+    }
+
+    //endregion
+
+    public Group createGroup(String name) {
+        Set<String> ids = groups.stream().map(Group::getId).collect(Collectors.toSet());
+        Group group;
+        int iterations = 0;
+        do {
+            group = new Group(name);
+            if (++iterations == 7) {
+                // If this happens then... run?
+                CascadeBot.LOGGER.error("Somehow we couldn't manage to create a unique group ID :(");
+                throw new IllegalStateException("Could not create a group with a unique ID!");
+            }
+        } while (ids.contains(group.getId()));
+        groups.add(group);
+        rebuildRoleIndex();
+        invalidateAll();
+        return group;
+    }
+
+    public boolean deleteGroup(String id) {
+        boolean deleted = groups.removeIf(group -> group.getId().equals(id));
+        rebuildRoleIndex();
+        invalidateAll();
+        return deleted;
+    }
+
+    public List<Group> getUserGroups(Member member) {
+        User user = getUserOrEmpty(member.getUser().getIdLong());
+        List<Group> userGroups = new ArrayList<>();
+        if (!user.isEmpty()) {
+            Set<String> groupIds = user.getGroupIds();
+            groups.stream().filter(group -> groupIds.contains(group.getId())).forEach(userGroups::add);
+        }
+
+        // This adds all the groups which have a id representing a role the member has.
+        RoleIndex index = getRoleIndex();
+        BitSet roleGroups = new BitSet(index.groups.size());
+        for (Role role : member.getRoles()) {
+            BitSet linked = index.groupsByRole.get(role.getIdLong());
+            if (linked != null) {
+                roleGroups.or(linked);
+            }
+        }
+        // Iterating the positions keeps the groups in hierarchy order
+        for (int i = roleGroups.nextSetBit(0); i >= 0; i = roleGroups.nextSetBit(i + 1)) {
+            userGroups.add(index.groups.get(i));
+        }
+        return userGroups;
+    }
+
+    private RoleIndex getRoleIndex() {
+        RoleIndex index = roleIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (roleIndex == null) {
+                    rebuildRoleIndex();
+                }
+                index = roleIndex;
+            }
+        }
+        return index;
+    }
+
+    private synchronized void rebuildRoleIndex() {
+        roleIndex = new RoleIndex(getGroups());
+    }
+
+    public List<Group> getGroups() {
+        return List.copyOf(groups);
+    }
+
+    /**
+     * An immutable inverted index from role ID to the positions of the groups linked to that role.
+     * This is rebuilt by the mutators on {@link GuildPermissions}, which are the only way to change role links.
+     */
+    private static class RoleIndex {
+
+        private final List<Group> groups;
+        private final Map<Long, BitSet> groupsByRole = new HashMap<>();
+
+        private RoleIndex(List<Group> groups) {
+            this.groups = groups;
+            for (int i = 0; i < groups.size(); i++) {
+                for (long roleId : groups.get(i).getRoleIds()) {
+                    groupsByRole.computeIfAbsent(roleId, id -> new BitSet()).set(i);
+                }
+            }
+        }
+
+    }
+
+    @Value
+    private static class DecisionKey {
+
+        private long channelId;
+        private String permission;
+
+    }
+
+    public enum PermissionMode {
+
+        HIERARCHICAL,
+        MOST_RESTRICTIVE
+
+    }
+
+}
@@ -1,11 +1,15 @@
 package org.cascadebot.cascadebot.permissions.objects;
 
 import com.google.common.collect.Sets;
+import de.bild.codec.annotations.Transient;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.cascadebot.cascadebot.permissions.CascadePermission;
 import org.cascadebot.cascadebot.permissions.PermissionNode;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 
 @ToString
@@ -14,29 +18,117 @@ public abstract class PermissionHolder {
 
     private Set<String> permissions = Sets.newConcurrentHashSet();
 
+    // Immutable snapshot of the permissions above, built lazily after the holder is loaded from the database
+    // and swapped whenever a permission is added or removed
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile PermissionSnapshot snapshot;
+
     abstract HolderType getType();
 
     public Set<String> getPermissions() {
         return Set.copyOf(permissions);
     }
 
-    public boolean addPermission(String permission) {
-        return permissions.add(permission);
+    /**
+     * @return Whether this holder has nothing assigned, in which case it evaluates to neutral for every permission.
+     */
+    public boolean isEmpty() {
+        return permissions.isEmpty();
+    }
+
+    synchronized boolean addPermission(String permission) {
+        boolean added = permissions.add(permission);
+        if (added) snapshot = new PermissionSnapshot(this);
+        return added;
     }
 
-    public boolean removePermission(String permission) {
-        return permissions.remove(permission);
+    synchronized boolean removePermission(String permission) {
+        boolean removed = permissions.remove(permission);
+        if (removed) snapshot = new PermissionSnapshot(this);
+        return removed;
     }
 
+    /**
+     * Evaluates a permission against this holder. The most specific matching node decides the result,
+     * and if an allow and a deny node are equally specific the deny wins.
+     * <p>
+     * This reads a single pre-built snapshot so it doesn't copy the permissions or allocate.
+     *
+     * @param permission The permission to evaluate.
+     * @return The result of the evaluation, which is neutral if no node matches.
+     */
     public Result evaluatePermission(CascadePermission permission) {
-        for (String perm : getPermissions()) {
-            if (new PermissionNode(perm.substring(perm.startsWith("-") ? 1 : 0)).test(permission.getPermission())) {
-                if (perm.startsWith("-"))
-                    return Result.of(PermissionAction.DENY, this);
-                return Result.of(PermissionAction.ALLOW, this);
+        PermissionSnapshot current = getSnapshot();
+        String perm = permission.getPermission();
+
+        PermissionNode deny = firstMatch(current.denies, perm);
+        PermissionNode allow = firstMatch(current.allows, perm);
+        if (deny == null && allow == null) return current.neutral;
+        if (deny == null) return current.allowed;
+        if (allow == null || PRECEDENCE.compare(allow, deny) >= 0) return current.denied;
+        return current.allowed;
+    }
+
+    private static PermissionNode firstMatch(PermissionNode[] nodes, String permission) {
+        for (PermissionNode node : nodes) {
+            if (node.test(permission)) return node;
+        }
+        return null;
+    }
+
+    private PermissionSnapshot getSnapshot() {
+        PermissionSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = new PermissionSnapshot(this);
+                    snapshot = current;
+                }
             }
         }
-        return Result.of(PermissionAction.NEUTRAL, this);
+        return current;
+    }
+
+    // Exact nodes first, then nodes with the most literal characters first. Nodes that compare equal here are equally
+    // specific, which is what decides between an allow and a deny
+    private static final Comparator<PermissionNode> PRECEDENCE = Comparator.comparing(PermissionNode::isWildcard)
+            .thenComparing(Comparator.comparingInt(PermissionNode::getSpecificity).reversed());
+
+    // Only used to give the snapshot a stable order, the node itself says nothing about precedence
+    private static final Comparator<PermissionNode> SPECIFICITY = PRECEDENCE.thenComparing(PermissionNode::getNode);
+
+    private static final class PermissionSnapshot {
+
+        private final PermissionNode[] allows;
+        private final PermissionNode[] denies;
+
+        // Results are immutable so they are created once per snapshot rather than per evaluation
+        private final Result allowed;
+        private final Result denied;
+        private final Result neutral;
+
+        private PermissionSnapshot(PermissionHolder holder) {
+            List<PermissionNode> allows = new ArrayList<>();
+            List<PermissionNode> denies = new ArrayList<>();
+            for (String perm : holder.permissions) {
+                if (perm.startsWith("-")) {
+                    denies.add(new PermissionNode(perm.substring(1)));
+                } else {
+                    allows.add(new PermissionNode(perm));
+                }
+            }
+            allows.sort(SPECIFICITY);
+            denies.sort(SPECIFICITY);
+            this.allows = allows.toArray(new PermissionNode[0]);
+            this.denies = denies.toArray(new PermissionNode[0]);
+            this.allowed = Result.of(PermissionAction.ALLOW, holder);
+            this.denied = Result.of(PermissionAction.DENY, holder);
+            this.neutral = Result.of(PermissionAction.NEUTRAL, holder);
+        }
+
     }
 
     enum HolderType {
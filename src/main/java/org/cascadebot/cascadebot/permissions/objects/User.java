@@ -17,11 +17,11 @@ public class User extends PermissionHolder {
 
     private final Set<String> groups = Sets.newConcurrentHashSet();
 
-    public boolean addGroup(Group group) {
+    boolean addGroup(Group group) {
         return groups.add(group.getId());
     }
 
-    public boolean removeGroup(Group group) {
+    boolean removeGroup(Group group) {
         return groups.remove(group.getId());
     }
 
@@ -29,6 +29,11 @@ public class User extends PermissionHolder {
         return Set.copyOf(groups);
     }
 
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && groups.isEmpty();
+    }
+
     @Override
     HolderType getType() {
         return HolderType.USER;
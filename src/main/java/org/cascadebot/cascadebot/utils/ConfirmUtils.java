@@ -20,6 +20,7 @@ import org.cascadebot.cascadebot.messaging.Messaging;
 import org.cascadebot.cascadebot.tasks.Task;
 import org.cascadebot.cascadebot.utils.buttons.Button;
 import org.cascadebot.cascadebot.utils.buttons.ButtonGroup;
+import org.cascadebot.cascadebot.utils.buttons.ButtonRegistry;
 
 import java.util.Map;
 import java.util.Optional;
@@ -58,7 +59,7 @@ public class ConfirmUtils {
                 }));
                 group.addButtonsToMessage(sentMessage);
                 group.setMessage(sentMessage.getIdLong());
-                guildData.addButtonGroup(channel, sentMessage, group);
+                ButtonRegistry.register(sentMessage, group);
             }, buttonDelay, TimeUnit.MILLISECONDS);
         }
 
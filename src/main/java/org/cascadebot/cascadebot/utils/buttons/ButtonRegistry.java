@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.utils.buttons;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import org.cascadebot.cascadebot.utils.DiscordUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the button groups of every buttoned message, keyed by the ID of the message. This is shared by every guild so
+ * reactions can be checked against it without loading the guild's data.
+ * <p>
+ * Button groups that haven't been used in a while are evicted and have their reactions removed so it's clear the
+ * buttons no longer work.
+ */
+public final class ButtonRegistry {
+
+    private static final Cache<Long, ButtonGroup> cache = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .<Long, ButtonGroup>removalListener((messageId, group, cause) -> {
+                if (cause.wasEvicted() && messageId != null && group != null) {
+                    clearButtons(group.getChannelId(), messageId);
+                }
+            })
+            .recordStats()
+            .build();
+
+    /**
+     * Registers the button group of a message so presses of its buttons are handled.
+     *
+     * @param message The message the buttons have been added to.
+     * @param group   The button group of the message.
+     */
+    public static void register(Message message, ButtonGroup group) {
+        group.setMessage(message.getIdLong());
+        cache.put(message.getIdLong(), group);
+    }
+
+    /**
+     * @param messageId The ID of the message.
+     * @return The button group of the message, or {@code null} if it doesn't have buttons or they have been evicted.
+     */
+    public static ButtonGroup get(long messageId) {
+        return cache.getIfPresent(messageId);
+    }
+
+    public static void remove(long messageId) {
+        cache.invalidate(messageId);
+    }
+
+    public static Cache<Long, ButtonGroup> getCache() {
+        return cache;
+    }
+
+    private static void clearButtons(long channelId, long messageId) {
+        MessageChannel channel = DiscordUtils.getTextChannelById(channelId);
+        if (channel == null) return;
+        channel.getMessageById(messageId).queue(message -> message.clearReactions().queue(), error -> { /* The message has been deleted */ });
+    }
+
+}
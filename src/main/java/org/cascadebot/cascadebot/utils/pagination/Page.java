@@ -5,16 +5,29 @@
 
 package org.cascadebot.cascadebot.utils.pagination;
 
+import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.Message;
 
 public interface Page {
 
+    /**
+     * Renders this page into a message.
+     *
+     * @param guild The guild the page is being shown in
+     * @param page  The number of this page, starting from 1
+     * @param total The total number of pages
+     * @return The message to send or edit the paged message to
+     */
+    Message render(Guild guild, int page, int total);
+
     /**
      * Method that's called when the page is shown
      *
      * @param message The message to edit with the page
      */
-    void pageShow(Message message, int page, int total);
+    default void pageShow(Message message, int page, int total) {
+        message.editMessage(render(message.getGuild(), page, total)).override(true).queue();
+    }
 
     //TODO expand this to allow more with more page options
 
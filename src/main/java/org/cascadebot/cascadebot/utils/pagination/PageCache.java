@@ -5,40 +5,68 @@
 
 package org.cascadebot.cascadebot.utils.pagination;
 
-import java.util.HashMap;
-import java.util.List;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
-public class PageCache extends HashMap<Long, PageCache.Pages> {
+import java.util.concurrent.TimeUnit;
 
-    public void put(List<Page> pages, long messageId) {
-        this.put(messageId, new Pages(pages));
+/**
+ * Holds the state of every paged message, keyed by the ID of the message. Paged messages that haven't been used in a
+ * while are evicted, after which their buttons stop doing anything.
+ */
+public final class PageCache {
+
+    private static final Cache<Long, Pages> cache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    public static void put(long messageId, PageProvider provider) {
+        cache.put(messageId, new Pages(provider));
+    }
+
+    /**
+     * @param messageId The ID of the paged message.
+     * @return The pages of the message, or {@code null} if it isn't a paged message or has been evicted.
+     */
+    public static Pages get(long messageId) {
+        return cache.getIfPresent(messageId);
+    }
+
+    public static void remove(long messageId) {
+        cache.invalidate(messageId);
+    }
+
+    public static Cache<Long, Pages> getCache() {
+        return cache;
     }
 
-    public class Pages {
+    public static class Pages {
 
-        List<Page> pages;
+        private final PageProvider provider;
 
-        int currentPage;
+        private int currentPage;
 
-        Pages(List<Page> pages) {
-            this.pages = pages;
+        Pages(PageProvider provider) {
+            this.provider = provider;
             currentPage = 1;
         }
 
-        public int getCurrentPage() {
+        public synchronized int getCurrentPage() {
             return currentPage;
         }
 
-        public void setCurrentPage(int currentPage) {
+        public synchronized void setCurrentPage(int currentPage) {
             this.currentPage = currentPage;
         }
 
         public Page getPage(int page) {
-            return pages.get(page - 1);
+            return provider.getPage(page);
         }
 
         public int getPages() {
-            return pages.size();
+            return provider.getPageCount();
         }
 
     }
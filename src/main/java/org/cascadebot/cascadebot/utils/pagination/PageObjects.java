@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.MessageBuilder;
+import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.Message;
 import org.cascadebot.cascadebot.data.managers.GuildDataManager;
 import org.cascadebot.cascadebot.utils.FormatUtils;
@@ -34,19 +35,18 @@ public class PageObjects {
         }
 
         @Override
-        public void pageShow(Message message, int page, int total) {
-            if (GuildDataManager.getGuildData(message.getTextChannel().getGuild().getIdLong()).getSettings().isUseEmbedForMessages()) {
+        public Message render(Guild guild, int page, int total) {
+            String avatarUrl = guild.getSelfMember().getUser().getAvatarUrl();
+            if (GuildDataManager.getGuildData(guild.getIdLong()).getSettings().isUseEmbedForMessages()) {
                 if (numbersInEmbed) {
-                    embed.setFooter("Page " + page + "/" + total, message.getAuthor().getAvatarUrl());
-                    message.editMessage(embed.build()).override(true).queue();
+                    embed.setFooter("Page " + page + "/" + total, avatarUrl);
+                    return new MessageBuilder().setEmbed(embed.build()).build();
                 } else {
-                    message.editMessage(new MessageBuilder().setEmbed(embed.build()).append("Page ").append(String.valueOf(page)).append("/").append(String.valueOf(total)).build()).override(true).queue();
-
+                    return new MessageBuilder().setEmbed(embed.build()).append("Page ").append(String.valueOf(page)).append("/").append(String.valueOf(total)).build();
                 }
             } else {
-                embed.setFooter("Page " + page + "/" + total, message.getAuthor().getAvatarUrl());
-                String content = FormatUtils.formatEmbed(embed.build());
-                message.editMessage(content).override(true).queue();
+                embed.setFooter("Page " + page + "/" + total, avatarUrl);
+                return new MessageBuilder().append(FormatUtils.formatEmbed(embed.build())).build();
             }
         }
 
@@ -60,8 +60,8 @@ public class PageObjects {
         String content;
 
         @Override
-        public void pageShow(Message message, int page, int total) {
-            message.editMessage(content + "\n\nPage " + page + "/" + total).override(true).queue();
+        public Message render(Guild guild, int page, int total) {
+            return new MessageBuilder().append(content).append("\n\nPage ").append(String.valueOf(page)).append("/").append(String.valueOf(total)).build();
         }
 
     }
@@ -74,15 +74,15 @@ public class PageObjects {
         boolean numbersInTable = true;
 
         @Override
-        public void pageShow(Message message, int page, int total) {
+        public Message render(Guild guild, int page, int total) {
             if (numbersInTable) {
                 Table.TableBuilder builder = this.table.edit();
                 builder.setFooter("Page " + page + "/" + total);
-                message.editMessage(builder.build().toString()).override(true).queue();
+                return new MessageBuilder().append(builder.build().toString()).build();
             } else {
                 String table = this.table.toString();
                 table += "\n\nPage " + page + "/" + total;
-                message.editMessage(table).override(true).queue();
+                return new MessageBuilder().append(table).build();
             }
         }
 
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.utils.pagination;
+
+import java.util.List;
+
+/**
+ * Provides the pages of a paged message. Pages are only created when they're shown, so providers can build them from
+ * live data rather than rendering every page up front.
+ */
+public interface PageProvider {
+
+    /**
+     * @return The number of pages there currently are. This is checked each time a page is shown so it can change.
+     */
+    int getPageCount();
+
+    /**
+     * Creates a page.
+     *
+     * @param page The number of the page, from 1 to {@link #getPageCount()}.
+     * @return The page.
+     */
+    Page getPage(int page);
+
+    static PageProvider of(List<Page> pages) {
+        return new PageProvider() {
+            @Override
+            public int getPageCount() {
+                return pages.size();
+            }
+
+            @Override
+            public Page getPage(int page) {
+                return pages.get(page - 1);
+            }
+        };
+    }
+
+}
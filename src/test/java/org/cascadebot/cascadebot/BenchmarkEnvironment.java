@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot;
+
+import org.cascadebot.cascadebot.commandmeta.CommandManager;
+import org.cascadebot.cascadebot.data.Config;
+import org.cascadebot.cascadebot.permissions.PermissionsManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Sets up the parts of the bot that benchmarks need without starting it. Each method only sets up its part the first
+ * time it's called, so benchmarks can call them from every setup.
+ */
+public final class BenchmarkEnvironment {
+
+    /**
+     * Loads a minimal config. The user with ID 1 is a developer.
+     */
+    public static synchronized void initConfig() throws IOException {
+        if (Config.INS != null) return;
+        File config = File.createTempFile("benchmark-config", ".yml");
+        config.deleteOnExit();
+        Files.writeString(config.toPath(), String.join("\n",
+                "bot:",
+                "  id: 1",
+                "  token: benchmark",
+                "database:",
+                "  connection_string: mongodb://localhost",
+                "security_levels:",
+                "  developer: [1]"
+        ));
+        Config.init(config);
+    }
+
+    /**
+     * Creates the permissions manager, which security checks go through. Permissions aren't registered.
+     */
+    public static synchronized void initPermissionsManager() throws IOException {
+        initConfig();
+        if (CascadeBot.INS.getPermissionsManager() != null) return;
+        CascadeBot.INS.setPermissionsManager(new PermissionsManager());
+    }
+
+    /**
+     * Loads the commands, which permissions are registered from.
+     */
+    public static synchronized void initCommandManager() throws IOException {
+        initConfig();
+        if (CascadeBot.INS.getCommandManager() != null) return;
+        CascadeBot.INS.setCommandManager(new CommandManager());
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
+import com.sedmelluq.discord.lavaplayer.track.playback.AllocatingAudioFrameBuffer;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameBuffer;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.NonAllocatingAudioFrameBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Simulates one 20ms tick of sending audio for a number of local players, each decoding a frame into its buffer and
+ * having a frame taken out by the send handler. Run with {@code -prof gc} to see the allocation rate and GC time,
+ * i.e. mvn -P benchmark verify -Djmh.include=AudioSend -Djmh.args="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AudioSendBenchmark {
+
+    @Param({"1000"})
+    private int players;
+
+    @Param({"5000"})
+    private int frameBufferDuration;
+
+    private AudioFrameBuffer[] allocatingBuffers;
+    private AudioFrameBuffer[] nonAllocatingBuffers;
+    private LavaPlayerAudioSendHandler[] handlers;
+
+    // Stands in for the decoder, which writes each frame it produces into a reused mutable frame
+    private MutableAudioFrame decodedFrame;
+    private byte[][] payloads;
+    private int tick;
+
+    @Setup
+    public void setup() {
+        // Seeded so every run sends the same frames
+        Random random = new Random(42);
+        payloads = new byte[64][];
+        for (int i = 0; i < payloads.length; i++) {
+            // Opus frames at the usual bitrates are a few hundred bytes
+            payloads[i] = new byte[100 + random.nextInt(300)];
+            random.nextBytes(payloads[i]);
+        }
+
+        decodedFrame = new MutableAudioFrame();
+        decodedFrame.setFormat(StandardAudioDataFormats.DISCORD_OPUS);
+        decodedFrame.setVolume(100);
+        decodedFrame.setBuffer(ByteBuffer.allocate(StandardAudioDataFormats.DISCORD_OPUS.maximumChunkSize()));
+
+        allocatingBuffers = new AudioFrameBuffer[players];
+        nonAllocatingBuffers = new AudioFrameBuffer[players];
+        handlers = new LavaPlayerAudioSendHandler[players];
+        for (int i = 0; i < players; i++) {
+            allocatingBuffers[i] = new AllocatingAudioFrameBuffer(frameBufferDuration, StandardAudioDataFormats.DISCORD_OPUS, new AtomicBoolean());
+            nonAllocatingBuffers[i] = new NonAllocatingAudioFrameBuffer(frameBufferDuration, StandardAudioDataFormats.DISCORD_OPUS, new AtomicBoolean());
+            handlers[i] = new LavaPlayerAudioSendHandler(nonAllocatingBuffers[i]);
+        }
+    }
+
+    /**
+     * The previous send path, using lavaplayer's default frame buffer and taking a new frame from it each time.
+     */
+    @Benchmark
+    public void allocatingFrames(Blackhole blackhole) throws InterruptedException {
+        tick++;
+        for (int i = 0; i < players; i++) {
+            decode(allocatingBuffers[i], i);
+            AudioFrame frame = allocatingBuffers[i].provide();
+            blackhole.consume(frame != null ? frame.getData() : null);
+        }
+    }
+
+    @Benchmark
+    public void mutableFrames(Blackhole blackhole) throws InterruptedException {
+        tick++;
+        for (int i = 0; i < players; i++) {
+            decode(nonAllocatingBuffers[i], i);
+            if (handlers[i].canProvide()) {
+                blackhole.consume(handlers[i].provide20MsAudio());
+            }
+        }
+    }
+
+    private void decode(AudioFrameBuffer buffer, int player) throws InterruptedException {
+        byte[] payload = payloads[(tick + player) % payloads.length];
+        decodedFrame.setTimecode(tick * 20L);
+        decodedFrame.store(payload, 0, payload.length);
+        buffer.consume(decodedFrame);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AudioSendBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
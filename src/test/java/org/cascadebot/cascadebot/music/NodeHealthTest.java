@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeHealthTest {
+
+    private static final long GB = 1024 * 1024 * 1024;
+
+    private static NodeHealth node(int framesDeficit, int framesNulled, long memoryUsed, long statsAge) {
+        return new NodeHealth(100, 80, 0.3, 0.2, framesDeficit, framesNulled, memoryUsed, 4 * GB, statsAge);
+    }
+
+    @Test
+    void healthyNode() {
+        NodeHealth health = node(10, 5, GB, 30_000);
+        assertTrue(health.isHealthy());
+        assertEquals(0, health.getPenalty());
+    }
+
+    @Test
+    void missingFrameStats() {
+        // Nodes without playing players report -1 for their frame stats
+        NodeHealth health = node(-1, -1, GB, 30_000);
+        assertEquals(0, health.getFramesLost());
+        assertTrue(health.isHealthy());
+    }
+
+    @Test
+    void droppingFrames() {
+        assertFalse(node(200, NodeHealth.UNHEALTHY_FRAMES_LOST - 200, GB, 30_000).isHealthy());
+        assertTrue(node(200, NodeHealth.UNHEALTHY_FRAMES_LOST - 201, GB, 30_000).isHealthy());
+    }
+
+    @Test
+    void staleStats() {
+        NodeHealth health = node(0, 0, GB, NodeHealth.STATS_STALE_AFTER + 1);
+        assertFalse(health.isHealthy());
+        assertEquals(NodeHealth.STALE_PENALTY, health.getPenalty());
+    }
+
+    @Test
+    void memoryPressure() {
+        assertEquals(0, node(0, 0, (long) (3.2 * GB), 0).getPenalty());
+        assertEquals(NodeHealth.MAX_MEMORY_PENALTY / 2, node(0, 0, (long) (3.6 * GB), 0).getPenalty(), 1);
+        assertTrue(node(0, 0, (long) (3.7 * GB), 0).isHealthy());
+        assertFalse(node(0, 0, (long) (3.9 * GB), 0).isHealthy());
+        assertEquals(NodeHealth.MAX_MEMORY_PENALTY, node(0, 0, 4 * GB, 0).getPenalty());
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures storing and loading the encoded tracks of a saved playlist. Loading a playlist without encoded tracks
+ * needs a round trip to the source for every track, which can't be measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaylistLoadBenchmark {
+
+    private static final String ID_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    @Param({"50", "500"})
+    private int tracks;
+
+    private List<AudioTrack> playlist;
+    private byte[] compressed;
+
+    @Setup
+    public void setup() {
+        YoutubeAudioSourceManager sourceManager = new YoutubeAudioSourceManager(false);
+        MusicHandler.getPlayerManager().registerSourceManager(sourceManager);
+
+        // Seeded so every run generates the same playlist
+        Random random = new Random(42);
+        playlist = new ArrayList<>(tracks);
+        for (int i = 0; i < tracks; i++) {
+            StringBuilder id = new StringBuilder();
+            for (int j = 0; j < 11; j++) {
+                id.append(ID_CHARACTERS.charAt(random.nextInt(ID_CHARACTERS.length())));
+            }
+            AudioTrackInfo info = new AudioTrackInfo("Benchmark track " + i, "Benchmark artist " + random.nextInt(20),
+                    120000 + random.nextInt(300000), id.toString(), false, "https://www.youtube.com/watch?v=" + id);
+            playlist.add(new YoutubeAudioTrack(info, sourceManager));
+        }
+        compressed = TrackSerializer.compress(playlist);
+    }
+
+    @Benchmark
+    public byte[] save() {
+        return TrackSerializer.compress(playlist);
+    }
+
+    @Benchmark
+    public List<AudioTrack> load() {
+        return TrackSerializer.decompress(compressed);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PlaylistLoadBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
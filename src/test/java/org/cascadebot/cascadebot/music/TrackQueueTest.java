@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.BaseAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TrackQueueTest {
+
+    private static AudioTrack track(int id) {
+        return track(id, false);
+    }
+
+    private static AudioTrack track(int id, boolean stream) {
+        AudioTrackInfo info = new AudioTrackInfo("Track " + id, "Test", stream ? Long.MAX_VALUE : 1000 + id, "track" + id, stream, null);
+        return new BaseAudioTrack(info) {
+            @Override
+            public void process(LocalAudioTrackExecutor executor) {
+            }
+        };
+    }
+
+    private static void assertQueue(List<AudioTrack> expected, TrackQueue queue) {
+        assertEquals(expected, queue.getRange(0, Integer.MAX_VALUE));
+        assertEquals(expected.size(), queue.size());
+        assertEquals(expected.stream().mapToLong(track -> track.getInfo().isStream ? 0 : track.getDuration()).sum(), queue.getDuration());
+    }
+
+    /**
+     * Creates a queue whose head is near the end of its array, so adding the tracks wraps around to the start.
+     */
+    private static TrackQueue wrappedQueue(List<AudioTrack> reference, int tracks) {
+        TrackQueue queue = new TrackQueue();
+        for (int i = 0; i < 12; i++) {
+            queue.offer(track(-1 - i));
+        }
+        for (int i = 0; i < 12; i++) {
+            queue.poll();
+        }
+        for (int i = 0; i < tracks; i++) {
+            AudioTrack track = track(i);
+            queue.offer(track);
+            reference.add(track);
+        }
+        return queue;
+    }
+
+    @Test
+    void pollsInOrder() {
+        TrackQueue queue = new TrackQueue();
+        ArrayDeque<AudioTrack> reference = new ArrayDeque<>();
+        for (int i = 0; i < 40; i++) {
+            AudioTrack track = track(i);
+            queue.offer(track);
+            reference.offer(track);
+            if (i % 3 == 0) {
+                assertEquals(reference.poll(), queue.poll());
+            }
+        }
+        assertEquals(new ArrayList<>(reference), queue.getRange(0, Integer.MAX_VALUE));
+        while (!reference.isEmpty()) {
+            assertEquals(reference.poll(), queue.poll());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.getDuration());
+    }
+
+    @Test
+    void growsWhileWrapped() {
+        List<AudioTrack> reference = new ArrayList<>();
+        // 4 tracks fit before the end of the array, the rest wrap around and then force it to grow
+        TrackQueue queue = wrappedQueue(reference, 10);
+        assertQueue(reference, queue);
+        for (int i = 10; i < 40; i++) {
+            AudioTrack track = track(i);
+            queue.offer(track);
+            reference.add(track);
+        }
+        assertQueue(reference, queue);
+
+        List<AudioTrack> more = List.of(track(100), track(101), track(102));
+        queue.addAll(more);
+        reference.addAll(more);
+        assertQueue(reference, queue);
+    }
+
+    @Test
+    void removeRangeAcrossWrap() {
+        List<AudioTrack> reference = new ArrayList<>();
+        TrackQueue queue = wrappedQueue(reference, 12);
+        // Indexes 2 to 9 span the end of the array
+        queue.removeRange(2, 9);
+        reference.subList(2, 9).clear();
+        assertQueue(reference, queue);
+
+        assertEquals(reference.remove(3), queue.removeAt(3));
+        assertQueue(reference, queue);
+
+        queue.removeRange(0, queue.size());
+        reference.clear();
+        assertQueue(reference, queue);
+    }
+
+    @Test
+    void moveAcrossWrap() {
+        List<AudioTrack> reference = new ArrayList<>();
+        TrackQueue queue = wrappedQueue(reference, 12);
+
+        queue.move(1, 10);
+        reference.add(10, reference.remove(1));
+        assertQueue(reference, queue);
+
+        queue.move(11, 0);
+        reference.add(0, reference.remove(11));
+        assertQueue(reference, queue);
+
+        queue.move(5, 5);
+        assertQueue(reference, queue);
+    }
+
+    @Test
+    void shuffleMatchesCollections() {
+        List<AudioTrack> reference = new ArrayList<>();
+        TrackQueue queue = wrappedQueue(reference, 12);
+        // Both are a Fisher-Yates shuffle drawing the same random numbers
+        queue.shuffle(new Random(7));
+        Collections.shuffle(reference, new Random(7));
+        assertQueue(reference, queue);
+    }
+
+    @Test
+    void streamsDontCountTowardsDuration() {
+        TrackQueue queue = new TrackQueue();
+        AudioTrack stream = track(1, true);
+        queue.offer(track(0));
+        queue.offer(stream);
+        queue.offer(track(2));
+        assertEquals(1000 + 1002, queue.getDuration());
+
+        queue.remove(stream);
+        assertEquals(1000 + 1002, queue.getDuration());
+        queue.poll();
+        assertEquals(1002, queue.getDuration());
+    }
+
+    @Test
+    void matchesReference() {
+        Random random = new Random(42);
+        TrackQueue queue = new TrackQueue();
+        List<AudioTrack> reference = new ArrayList<>();
+        int nextId = 0;
+        for (int step = 0; step < 5000; step++) {
+            int size = reference.size();
+            // Tracks are added slightly more often than they're removed so the queue grows through several capacities
+            switch (random.nextInt(7)) {
+                case 0:
+                case 1:
+                case 2:
+                    AudioTrack track = track(nextId++, random.nextInt(10) == 0);
+                    queue.offer(track);
+                    reference.add(track);
+                    break;
+                case 3:
+                    assertEquals(size == 0 ? null : reference.remove(0), queue.poll());
+                    break;
+                case 4:
+                    if (size == 0) break;
+                    int from = random.nextInt(size);
+                    int to = from + random.nextInt(Math.min(size - from, 4) + 1);
+                    queue.removeRange(from, to);
+                    reference.subList(from, to).clear();
+                    break;
+                case 5:
+                    if (size == 0) break;
+                    int moveFrom = random.nextInt(size);
+                    int moveTo = random.nextInt(size);
+                    queue.move(moveFrom, moveTo);
+                    reference.add(moveTo, reference.remove(moveFrom));
+                    break;
+                default:
+                    long seed = random.nextLong();
+                    queue.shuffle(new Random(seed));
+                    Collections.shuffle(reference, new Random(seed));
+                    break;
+            }
+            assertQueue(reference, queue);
+        }
+    }
+
+}
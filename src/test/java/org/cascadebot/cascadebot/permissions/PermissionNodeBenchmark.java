@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.permissions;
+
+import org.cascadebot.cascadebot.permissions.objects.Group;
+import org.cascadebot.cascadebot.permissions.objects.GuildPermissions;
+import org.cascadebot.cascadebot.permissions.objects.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating a holder with the regex based {@link PermissionNode} against the compiled matcher.
+ * The permission being checked is not held, so every node is tested (the worst case).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionNodeBenchmark {
+
+    @Param({"1", "50", "200"})
+    private int nodesPerHolder;
+
+    private final CascadePermission permission = CascadePermission.of("Benchmark", "benchmark.missing");
+
+    private Group holder;
+    private List<String> rawPermissions;
+
+    @Setup
+    public void setup() {
+        GuildPermissions permissions = new GuildPermissions();
+        holder = permissions.createGroup("benchmark");
+        rawPermissions = new ArrayList<>();
+        for (int i = 0; i < nodesPerHolder; i++) {
+            // Mix of exact, trailing wildcard, middle wildcard and negated nodes
+            String perm;
+            switch (i % 4) {
+                case 0:
+                    perm = "cascade.command" + i;
+                    break;
+                case 1:
+                    perm = "cascade.command" + i + ".*";
+                    break;
+                case 2:
+                    perm = "cascade.*.sub" + i;
+                    break;
+                default:
+                    perm = "-cascade.command" + i + ".other";
+                    break;
+            }
+            permissions.addPermission(holder, perm);
+            rawPermissions.add(perm);
+        }
+    }
+
+    @Benchmark
+    public boolean regex() {
+        for (String perm : rawPermissions) {
+            if (PermissionNodeTest.regexTest(perm.substring(perm.startsWith("-") ? 1 : 0), permission.getPermission())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public Result compiled() {
+        return holder.evaluatePermission(permission);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PermissionNodeBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
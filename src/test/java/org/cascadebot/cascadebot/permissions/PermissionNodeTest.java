@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.permissions;
+
+import org.cascadebot.cascadebot.permissions.objects.Group;
+import org.cascadebot.cascadebot.permissions.objects.GuildPermissions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermissionNodeTest {
+
+    private static final String[] NODES = {
+            "*", "cascade.*", "cascade.queue", "cascade.queue.*", "*.queue", "*.queue.*", "cascade.*.load",
+            "cascade.*.*", "*.*", "cascade.", "cascade.que*", "cascade.*.save.overwrite", "*.save.*", ""
+    };
+
+    private static final String[] PERMISSIONS = {
+            "cascade.queue", "cascade.queue.load", "cascade.queue.save", "cascade.queue.save.overwrite",
+            "cascade.module.music", "cascade.", "cascade", "queue", "cascade.queue.", "cascade.que*", "x.queue",
+            "cascade.a.load", "cascade..load", "cascade.load", ""
+    };
+
+    @Test
+    void wildcards() {
+        assertTrue(new PermissionNode("*").test("cascade.anything"));
+        assertTrue(new PermissionNode("cascade.*").test("cascade.queue.load"));
+        assertFalse(new PermissionNode("cascade.*").test("cascade."));
+        assertTrue(new PermissionNode("cascade.*.load").test("cascade.queue.load"));
+        assertFalse(new PermissionNode("cascade.*.load").test("cascade.queue.save"));
+        assertTrue(new PermissionNode("cascade.queue").test("cascade.queue"));
+        assertFalse(new PermissionNode("cascade.queue").test("cascade.queue.load"));
+    }
+
+    @Test
+    void matchesRegexImplementation() {
+        for (String node : NODES) {
+            PermissionNode permissionNode = new PermissionNode(node);
+            for (String permission : PERMISSIONS) {
+                assertEquals(regexTest(node, permission), permissionNode.test(permission), node + " -> " + permission);
+            }
+        }
+    }
+
+    @Test
+    void equallySpecificDenyWins() {
+        // Both nodes are wildcards with the same number of literal characters, so neither is more specific
+        GuildPermissions permissions = new GuildPermissions();
+        Group group = permissions.createGroup("test");
+        permissions.addPermission(group, "cascade.*.c");
+        permissions.addPermission(group, "-cascade.b.*");
+        assertTrue(group.evaluatePermission(CascadePermission.of("Test", "cascade.b.c")).isDenied());
+    }
+
+    // The original regex based implementation that the compiled matcher replaces
+    static boolean regexTest(String node, String permission) {
+        if (node.equals("*"))
+            return true;
+        String textNode = Arrays.stream(node.split("(?:^\\*(\\.))|(?:(?<=\\.)\\*(?=\\.))|(?:(?<=\\.)\\*$)"))
+                .map(Pattern::quote)
+                .collect(Collectors.joining(".+")) + (node.endsWith("*") ? ".+" : "");
+        return permission.matches(textNode);
+    }
+
+}
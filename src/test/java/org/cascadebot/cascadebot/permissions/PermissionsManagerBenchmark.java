@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.permissions;
+
+import org.cascadebot.cascadebot.BenchmarkEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates permissions as they are entered by users, which tests wildcards against every registered permission.
+ * The permissions are registered from the real commands, the same as on startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionsManagerBenchmark {
+
+    private PermissionsManager manager;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkEnvironment.initCommandManager();
+        manager = new PermissionsManager();
+        manager.registerPermissions();
+    }
+
+    @Benchmark
+    public boolean exact() {
+        return manager.isValidPermission("queue.save.overwrite");
+    }
+
+    @Benchmark
+    public boolean wildcardMatch() {
+        return manager.isValidPermission("cascade.*.overwrite");
+    }
+
+    @Benchmark
+    public boolean wildcardMiss() {
+        // No permission matches so every registered permission is tested
+        return manager.isValidPermission("cascade.*.missing");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PermissionsManagerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
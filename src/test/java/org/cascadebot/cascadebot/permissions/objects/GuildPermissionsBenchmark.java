@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2019 CascadeBot. All rights reserved.
+ * Licensed under the MIT license.
+ */
+
+package org.cascadebot.cascadebot.permissions.objects;
+
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.Role;
+import net.dv8tion.jda.core.entities.User;
+import org.cascadebot.cascadebot.BenchmarkEnvironment;
+import org.cascadebot.cascadebot.data.objects.GuildSettingsCore;
+import org.cascadebot.cascadebot.permissions.CascadePermission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates permissions for a member against a guild with a generated set of groups and user permissions. Only the
+ * ends of each range are measured to keep a full run short, use {@code -p} to look at a specific case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class GuildPermissionsBenchmark {
+
+    private static final long USER_ID = 123456789012345678L;
+
+    @Param({"1", "500"})
+    private int groups;
+
+    @Param({"1", "200"})
+    private int permissionsPerHolder;
+
+    @Param({"1", "100"})
+    private int memberRoles;
+
+    // The fraction of nodes that contain a wildcard
+    @Param({"0.0", "1.0"})
+    private double wildcardDensity;
+
+    // The same guild in each mode, so both modes are measured without doubling the parameter matrix
+    private GuildPermissions mostRestrictive;
+    private GuildPermissions hierarchical;
+    private GuildSettingsCore settings;
+    private Member member;
+    private CascadePermission permission;
+    private List<CascadePermission> batch;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkEnvironment.initPermissionsManager();
+
+        mostRestrictive = createPermissions(GuildPermissions.PermissionMode.MOST_RESTRICTIVE);
+        hierarchical = createPermissions(GuildPermissions.PermissionMode.HIERARCHICAL);
+        settings = new GuildSettingsCore();
+
+        List<Role> roles = new ArrayList<>();
+        for (long roleId = 1; roleId <= memberRoles; roleId++) {
+            roles.add(role(roleId));
+        }
+        member = member(roles);
+
+        permission = CascadePermission.of("Benchmark", "command7.sub3");
+        batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(CascadePermission.of("Benchmark " + i, "command" + i + ".sub" + (i % 10)));
+        }
+    }
+
+    private GuildPermissions createPermissions(GuildPermissions.PermissionMode mode) {
+        // Seeded so every run generates the same guild
+        Random random = new Random(42);
+        GuildPermissions permissions = new GuildPermissions();
+        permissions.setMode(mode);
+
+        for (int i = 0; i < groups; i++) {
+            Group group = permissions.createGroup("group" + i);
+            for (int j = 0; j < permissionsPerHolder; j++) {
+                permissions.addPermission(group, randomNode(random));
+            }
+            // Links roughly half of the groups to a role that the member has
+            permissions.linkRole(group, 1 + random.nextInt(memberRoles * 2));
+        }
+
+        permissions.addUserToGroup(USER_ID, permissions.getGroups().get(0));
+        for (int j = 0; j < permissionsPerHolder; j++) {
+            permissions.addUserPermission(USER_ID, randomNode(random));
+        }
+        return permissions;
+    }
+
+    private String randomNode(Random random) {
+        String node;
+        if (random.nextDouble() < wildcardDensity) {
+            node = random.nextBoolean() ?
+                    "cascade.command" + random.nextInt(100) + ".*" :
+                    "cascade.*.sub" + random.nextInt(10);
+        } else {
+            node = "cascade.command" + random.nextInt(100) + ".sub" + random.nextInt(10);
+        }
+        return random.nextInt(4) == 0 ? "-" + node : node;
+    }
+
+    @Benchmark
+    public Result evalPermissionCached() {
+        return mostRestrictive.evalPermission(member, permission, settings);
+    }
+
+    @Benchmark
+    public Result evalMostRestrictive() {
+        // Measures the full evaluation, including repopulating the decision cache
+        mostRestrictive.invalidateMember(USER_ID);
+        return mostRestrictive.evalPermission(member, permission, settings);
+    }
+
+    @Benchmark
+    public Result evalHierarchical() {
+        hierarchical.invalidateMember(USER_ID);
+        return hierarchical.evalPermission(member, permission, settings);
+    }
+
+    @Benchmark
+    public BitSet evaluateAll() {
+        return mostRestrictive.evaluateAll(member, null, batch, settings);
+    }
+
+    private static Role role(long id) {
+        return (Role) Proxy.newProxyInstance(Role.class.getClassLoader(), new Class[]{Role.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getIdLong":
+                    return id;
+                case "hashCode":
+                    return Long.hashCode(id);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "Role:" + id;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static Member member(List<Role> roles) {
+        User user = (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class[]{User.class}, (proxy, method, args) -> {
+            if (method.getName().equals("getIdLong")) return USER_ID;
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return (Member) Proxy.newProxyInstance(Member.class.getClassLoader(), new Class[]{Member.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUser":
+                    return user;
+                case "getRoles":
+                    return roles;
+                case "isOwner":
+                case "hasPermission":
+                    return false;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GuildPermissionsBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}